@@ -1,26 +1,22 @@
-# Add project specific ProGuard rules here.
-# You can control the set of applied configuration files using the
-# proguardFiles setting in build.gradle.
+# Project specific R8 rules. Release builds run R8 in full mode
+# (android.enableR8.fullMode in gradle.properties).
 #
 # For more details, see
-#   http://developer.android.com/guide/developing/tools/proguard.html
+#   https://developer.android.com/build/shrink-code
 
-# If your project uses WebView with JS, uncomment the following
-# and specify the fully qualified class name to the JavaScript interface
-# class:
--keepclassmembers class fqcn.of.javascript.interface.for.webview {
-   public *;
-}
+# Manifest components are instantiated by the framework by name. AAPT generates keep rules for
+# them, but these are listed explicitly so the release build never depends on that.
+-keep class com.nomor.memoryclear.ForceStopAccessibilityService { <init>(); }
+-keep class com.nomor.memoryclear.FloatingDockService { <init>(); }
+-keep class com.nomor.memoryclear.BootReceiver { <init>(); }
+-keep class com.nomor.memoryclear.NoMoreAppsApplication { <init>(); }
 
-# Keep JavaScript interface
--keepclassmembers class com.elementfinder.browser.WebViewActivity$SelectorJavaScriptInterface {
-   public *;
+# WorkManager stores worker class names in its database and creates them reflectively,
+# so scheduled work from an older install must still resolve after an update
+-keep class * extends androidx.work.ListenableWorker {
+    <init>(android.content.Context, androidx.work.WorkerParameters);
 }
 
-# Uncomment this to preserve the line number information for
-# debugging stack traces.
-#-keepattributes SourceFile,LineNumberTable
-
-# If you keep the line number information, uncomment this to
-# hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+# ErrorLogger records stack traces; keep them readable with the mapping file
+-keepattributes SourceFile,LineNumberTable
+-renamesourcefileattribute SourceFile
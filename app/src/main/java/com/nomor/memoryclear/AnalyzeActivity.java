@@ -3,8 +3,6 @@ package com.nomor.memoryclear;
 import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ImageButton;
@@ -16,6 +14,8 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
 
 public class AnalyzeActivity extends AppCompatActivity {
     
@@ -26,22 +26,29 @@ public class AnalyzeActivity extends AppCompatActivity {
     private ImageButton backButton;
     private TextView titleText;
     private TextView statusText;
+    private TextView throughputText;
     private ProgressBar progressBar;
     
     private AppListAdapter adapter;
     private AppManager appManager;
     private String[] selectedPackages;
     private int totalApps;
-    private int processedApps;
-    private Handler mainHandler;
+    private TaskScope taskScope;
+    
+    // Job id of the batch this screen started; progress of any other batch is ignored
+    private String jobId;
+    private boolean wasPremiumActive;
+    private String[] runPackages;
+    private MemoryReclaimMeter.Sample memoryBefore;
+    private final ForceStopProgress.Listener progressListener = this::onForceStopProgress;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        taskScope = new TaskScope(this);
         setContentView(R.layout.activity_analyze);
         
         appManager = new AppManager(this);
-        mainHandler = new Handler(Looper.getMainLooper());
         
         selectedPackages = getIntent().getStringArrayExtra("selected_packages");
         totalApps = getIntent().getIntExtra("selected_apps_count", 0);
@@ -58,6 +65,7 @@ public class AnalyzeActivity extends AppCompatActivity {
         backButton = findViewById(R.id.btn_back);
         titleText = findViewById(R.id.title_text);
         statusText = findViewById(R.id.status_text);
+        throughputText = findViewById(R.id.throughput_text);
         progressBar = findViewById(R.id.progress_bar);
         
         titleText.setText("Analyze Apps");
@@ -76,8 +84,7 @@ public class AnalyzeActivity extends AppCompatActivity {
             @Override
             public void onItemClick(AppInfo appInfo) {
                 // Toggle selection
-                appInfo.isSelected = !appInfo.isSelected;
-                adapter.notifyDataSetChanged();
+                adapter.toggleSelection(appInfo);
                 updateStatusText();
             }
             
@@ -115,7 +122,7 @@ public class AnalyzeActivity extends AppCompatActivity {
             return;
         }
         
-        new Thread(() -> {
+        taskScope.launch(AppExecutors.io(), () -> {
             List<AppInfo> selectedApps = new ArrayList<>();
             
             for (String packageName : selectedPackages) {
@@ -123,11 +130,7 @@ public class AnalyzeActivity extends AppCompatActivity {
                     android.content.pm.ApplicationInfo appInfo = getPackageManager().getApplicationInfo(packageName, 0);
                     String appName = getPackageManager().getApplicationLabel(appInfo).toString();
                     
-                    AppInfo app = new AppInfo(
-                        packageName,
-                        appName,
-                        getPackageManager().getApplicationIcon(appInfo)
-                    );
+                    AppInfo app = new AppInfo(packageName, appName);
                     app.isSelected = true; // Default selected
                     selectedApps.add(app);
                 } catch (android.content.pm.PackageManager.NameNotFoundException e) {
@@ -135,11 +138,10 @@ public class AnalyzeActivity extends AppCompatActivity {
                 }
             }
             
-            runOnUiThread(() -> {
-                adapter.updateAppList(selectedApps);
-                updateStatusText();
+            taskScope.runOnMain(() -> {
+                adapter.updateAppList(selectedApps, this::updateStatusText);
             });
-        }).start();
+        });
     }
     
     private void updateStatusText() {
@@ -154,19 +156,21 @@ public class AnalyzeActivity extends AppCompatActivity {
         // Hide start button and show progress
         startButton.setVisibility(View.GONE);
         progressBar.setVisibility(View.VISIBLE);
+        progressBar.setProgress(0);
+        throughputText.setVisibility(View.VISIBLE);
+        throughputText.setText("");
         
-        processedApps = 0;
         totalApps = selectedApps.size();
         
         statusText.setText("Starting force stop process...");
         
         // Check if premium speed is active
-        boolean isPremiumActive = AppPreferences.isPremiumActive();
+        wasPremiumActive = AppPreferences.isPremiumActive();
         
         // Start accessibility service force stopping
         Intent serviceIntent = new Intent(this, ForceStopAccessibilityService.class);
         serviceIntent.putExtra("action", "force_stop_apps");
-        serviceIntent.putExtra("premium_speed", isPremiumActive);
+        serviceIntent.putExtra("premium_speed", wasPremiumActive);
         
         String[] packageNames = new String[selectedApps.size()];
         for (int i = 0; i < selectedApps.size(); i++) {
@@ -174,59 +178,112 @@ public class AnalyzeActivity extends AppCompatActivity {
         }
         serviceIntent.putExtra("packages", packageNames);
         
-        startService(serviceIntent);
+        // Nobody awaits this id in ForceStopJobTracker; it only tags the batch's progress
+        jobId = UUID.randomUUID().toString();
+        serviceIntent.putExtra(ForceStopJobTracker.EXTRA_JOB_ID, jobId);
         
-        // Simulate the force stopping process with live updates (adjust timing based on premium)
-        simulateForceStoppingProcess(selectedApps, isPremiumActive);
+        runPackages = packageNames;
+        
+        // Memory is sampled before dispatch so the run's outcome can be measured
+        taskScope.launch(AppExecutors.io(), () -> {
+            MemoryReclaimMeter.Sample before = MemoryReclaimMeter.sample(this, packageNames);
+            taskScope.runOnMain(() -> {
+                memoryBefore = before;
+                
+                // The service reports each step as it happens
+                ForceStopProgress.addListener(progressListener);
+                startService(serviceIntent);
+            });
+        });
     }
     
-    private void simulateForceStoppingProcess(List<AppInfo> selectedApps, boolean isPremiumActive) {
-        new Thread(() -> {
-            // Adjust timing based on premium speed
-            int delayPerApp = isPremiumActive ? 500 : 2000; // 4x faster for premium
-            
-            for (AppInfo app : selectedApps) {
-                try {
-                    Thread.sleep(delayPerApp);
-                    
-                    processedApps++;
-                    final int progress = (processedApps * 100) / totalApps;
-                    
-                    mainHandler.post(() -> {
-                        progressBar.setProgress(progress);
-                        String speedIndicator = isPremiumActive ? " ⚡ PREMIUM SPEED" : "";
-                        statusText.setText("Force stopping " + app.appName + "..." + speedIndicator + " (" + 
-                            processedApps + "/" + totalApps + ")");
-                    });
-                    
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-            
-            // Process completed
-            mainHandler.post(() -> {
-                progressBar.setVisibility(View.GONE);
-                String completionMessage = isPremiumActive ? 
-                    "⚡ PREMIUM SPEED force stopping completed! " + processedApps + " apps stopped in record time!" :
-                    "Force stopping completed! " + processedApps + " apps stopped.";
-                statusText.setText(completionMessage);
+    private void onForceStopProgress(ForceStopProgress.Update update) {
+        if (jobId == null || !jobId.equals(update.jobId) || isFinishing()) {
+            return;
+        }
+        
+        if (update.total > 0) {
+            progressBar.setProgress((update.index * 100) / update.total);
+        }
+        throughputText.setText(formatThroughput(update));
+        
+        if (!update.isFinished()) {
+            String speedIndicator = wasPremiumActive ? " ⚡ PREMIUM SPEED" : "";
+            statusText.setText(update.getStepLabel() + ": " + update.packageName + speedIndicator + " (" +
+                (update.index + 1) + "/" + update.total + ")");
+            return;
+        }
+        
+        // Process completed
+        jobId = null;
+        ForceStopProgress.removeListener(progressListener);
+        progressBar.setVisibility(View.GONE);
+        String completionMessage = wasPremiumActive ?
+            "⚡ PREMIUM SPEED force stopping completed! " + update.stopped + " apps stopped in record time!" :
+            "Force stopping completed! " + update.stopped + " apps stopped.";
+        statusText.setText(completionMessage + "\nMeasuring reclaimed memory...");
+        
+        RunHistory.RunRecord record = new RunHistory.RunRecord();
+        record.trigger = "manual";
+        record.attempted = update.index;
+        record.stopped = update.stopped;
+        record.durationMs = update.elapsedMs;
+        record.premiumSpeed = wasPremiumActive;
+        measureAndRecord(record, completionMessage);
+    }
+    
+    /**
+     * Sample memory again once the stopped apps' processes are gone, store the run and
+     * show the measured outcome
+     */
+    private void measureAndRecord(RunHistory.RunRecord record, String completionMessage) {
+        final MemoryReclaimMeter.Sample before = memoryBefore;
+        final String[] packages = runPackages;
+        taskScope.launch(AppExecutors.io(), () -> {
+            try {
+                MemoryReclaimMeter.Sample after = MemoryReclaimMeter.sampleAfterSettle(this, packages);
+                record.time = System.currentTimeMillis();
+                MemoryReclaimMeter.fill(record, before, after);
+                RunHistory.add(this, record);
                 
-                // Show completion dialog
-                showCompletionDialog(isPremiumActive);
-            });
-            
-        }).start();
+                taskScope.runOnMain(() -> {
+                    statusText.setText(completionMessage + "\n" + MemoryReclaimMeter.describe(record));
+                    showCompletionDialog(wasPremiumActive, record);
+                });
+            } catch (InterruptedException e) {
+                // Screen closed during the settle period
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Error measuring reclaimed memory", e);
+                taskScope.runOnMain(() -> showCompletionDialog(wasPremiumActive, record));
+            }
+        });
     }
     
-    private void showCompletionDialog(boolean wasPremiumActive) {
+    private static String formatThroughput(ForceStopProgress.Update update) {
+        long etaMs = update.getEtaMs();
+        return String.format(Locale.US, "Elapsed %s · %.1f apps/min · ETA %s · %d MB freed",
+            formatDuration(update.elapsedMs),
+            update.getAppsPerMinute(),
+            etaMs < 0 ? "--:--" : formatDuration(etaMs),
+            update.reclaimedMb);
+    }
+    
+    private static String formatDuration(long ms) {
+        long seconds = ms / 1000;
+        return String.format(Locale.US, "%d:%02d", seconds / 60, seconds % 60);
+    }
+    
+    private void showCompletionDialog(boolean wasPremiumActive, RunHistory.RunRecord record) {
         androidx.appcompat.app.AlertDialog.Builder builder = new androidx.appcompat.app.AlertDialog.Builder(this);
+        int processedApps = record.stopped;
         String title = wasPremiumActive ? "⚡ Premium Speed Complete!" : "Force Stop Completed";
+        String outcome = record.totalMb > 0
+            ? MemoryReclaimMeter.describe(record) + "."
+            : "Reclaimed memory could not be measured.";
         String message = wasPremiumActive ? 
-            "Successfully force stopped " + processedApps + " apps at PREMIUM SPEED (3-4x faster)!\n\n" +
-            "Your device should now have significantly more available memory." :
-            "Successfully force stopped " + processedApps + " apps.\n\n" +
-            "Your device should now have more available memory.";
+            "Successfully force stopped " + processedApps + " apps at PREMIUM SPEED (3-4x faster)!\n\n" + outcome :
+            "Successfully force stopped " + processedApps + " apps.\n\n" + outcome;
             
         builder.setTitle(title)
                .setMessage(message)
@@ -266,4 +323,10 @@ public class AnalyzeActivity extends AppCompatActivity {
                .setPositiveButton("OK", null)
                .show();
     }
-}
\ No newline at end of file
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ForceStopProgress.removeListener(progressListener);
+    }
+}
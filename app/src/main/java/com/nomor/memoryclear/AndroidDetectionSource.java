@@ -0,0 +1,115 @@
+package com.nomor.memoryclear;
+
+import android.app.ActivityManager;
+import android.app.usage.UsageStats;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DetectionSource backed by PackageManager, ActivityManager and UsageStatsManager.
+ * Missing system services and null platform results come back as empty lists.
+ */
+public class AndroidDetectionSource implements DetectionSource {
+    
+    private final PackageManager packageManager;
+    private final ActivityManager activityManager;
+    private final UsageStatsManager usageStatsManager;
+    
+    public AndroidDetectionSource(Context context) {
+        this.packageManager = context.getPackageManager();
+        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        this.usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+    }
+    
+    @Override
+    public int getSdkInt() {
+        return Build.VERSION.SDK_INT;
+    }
+    
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+    
+    @Override
+    public List<String> getInstalledPackages() {
+        List<ApplicationInfo> installed = packageManager.getInstalledApplications(0);
+        List<String> packages = new ArrayList<>(installed.size());
+        for (ApplicationInfo appInfo : installed) {
+            packages.add(appInfo.packageName);
+        }
+        return packages;
+    }
+    
+    @Override
+    public String getLabel(String packageName) {
+        try {
+            ApplicationInfo appInfo = packageManager.getApplicationInfo(packageName, 0);
+            return packageManager.getApplicationLabel(appInfo).toString();
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public List<UsageRecord> queryUsage(long startTime, long endTime) {
+        if (usageStatsManager == null) {
+            return Collections.emptyList();
+        }
+        List<UsageStats> stats = usageStatsManager.queryUsageStats(UsageStatsManager.INTERVAL_BEST, startTime, endTime);
+        if (stats == null) {
+            return Collections.emptyList();
+        }
+        
+        // getLastTimeVisible() only exists from Android 10
+        boolean hasVisible = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+        List<UsageRecord> records = new ArrayList<>(stats.size());
+        for (UsageStats usage : stats) {
+            records.add(new UsageRecord(usage.getPackageName(), usage.getLastTimeUsed(),
+                hasVisible ? usage.getLastTimeVisible() : 0, usage.getTotalTimeInForeground()));
+        }
+        return records;
+    }
+    
+    @Override
+    public List<ProcessRecord> getRunningProcesses() {
+        if (activityManager == null) {
+            return Collections.emptyList();
+        }
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager.getRunningAppProcesses();
+        if (processes == null) {
+            return Collections.emptyList();
+        }
+        
+        List<ProcessRecord> records = new ArrayList<>(processes.size());
+        for (ActivityManager.RunningAppProcessInfo processInfo : processes) {
+            if (processInfo.pkgList != null) {
+                records.add(new ProcessRecord(processInfo.importance, processInfo.pkgList));
+            }
+        }
+        return records;
+    }
+    
+    @Override
+    public List<String> getRunningServicePackages() {
+        if (activityManager == null) {
+            return Collections.emptyList();
+        }
+        List<ActivityManager.RunningServiceInfo> services = activityManager.getRunningServices(Integer.MAX_VALUE);
+        if (services == null) {
+            return Collections.emptyList();
+        }
+        
+        List<String> packages = new ArrayList<>(services.size());
+        for (ActivityManager.RunningServiceInfo serviceInfo : services) {
+            packages.add(serviceInfo.service.getPackageName());
+        }
+        return packages;
+    }
+}
@@ -0,0 +1,91 @@
+package com.nomor.memoryclear;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide thread pools: a small pool for blocking I/O and system service calls,
+ * a pool sized to the cores for computation, and the main thread. Idle pool threads
+ * time out, so nothing stays alive between bursts of work.
+ *
+ * Activities should submit through a TaskScope so their work is cancelled on destroy.
+ */
+public final class AppExecutors {
+    
+    private static final int IO_THREADS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    
+    private static final ExecutorService sIo = newPool("io", IO_THREADS, Process.THREAD_PRIORITY_BACKGROUND);
+    private static final ExecutorService sCpu = newPool("cpu",
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)),
+        Process.THREAD_PRIORITY_DEFAULT);
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    private static final Executor sMain = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            sMainHandler.post(command);
+        }
+    };
+    
+    private AppExecutors() {
+    }
+    
+    /**
+     * Package manager, usage stats, ActivityManager and file work
+     */
+    public static ExecutorService io() {
+        return sIo;
+    }
+    
+    /**
+     * Sorting, indexing and analysis that does not block
+     */
+    public static ExecutorService cpu() {
+        return sCpu;
+    }
+    
+    public static Executor main() {
+        return sMain;
+    }
+    
+    public static Handler mainHandler() {
+        return sMainHandler;
+    }
+    
+    /**
+     * Drop cancelled tasks still waiting in the queues, so they release what they captured
+     */
+    static void purge() {
+        ((ThreadPoolExecutor) sIo).purge();
+        ((ThreadPoolExecutor) sCpu).purge();
+    }
+    
+    private static ExecutorService newPool(final String name, int threads, final int priority) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(priority);
+                            runnable.run();
+                        }
+                    }, name + "-" + threadCount.incrementAndGet());
+                }
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
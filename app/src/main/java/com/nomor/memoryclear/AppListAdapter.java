@@ -9,49 +9,162 @@ import android.widget.CheckBox;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.ViewHolder> {
+/**
+ * App rows backed by ListAdapter: list updates are diffed on a background thread and only real
+ * inserts, removes, moves and changes are dispatched. Selection changes rebind just the checkbox
+ * and status of one row through a payload.
+ */
+public class AppListAdapter extends ListAdapter<AppInfo, AppListAdapter.ViewHolder> {
     
     public static final int MODE_WHITELIST = 1;
     public static final int MODE_RUNNING = 2;
     public static final int MODE_ANALYZE = 3;
+    public static final int MODE_PICKER = 4;
+    
+    private static final Object PAYLOAD_SELECTION = new Object();
+    private static final Object PAYLOAD_RESOURCES = new Object();
+    
+    // Resolved once; binds only pick between these
+    private static final int COLOR_WHITELISTED = Color.parseColor("#4CAF50");
+    private static final int COLOR_RUNNING = Color.parseColor("#FF5722");
+    private static final int COLOR_STOP = Color.parseColor("#F44336");
+    private static final int COLOR_KEEP = Color.parseColor("#4CAF50");
+    private static final String STATUS_WILL_STOP = "WILL STOP";
+    private static final String STATUS_KEEP_RUNNING = "KEEP RUNNING";
+    
+    private static final DiffUtil.ItemCallback<AppInfo> DIFF_CALLBACK = new DiffUtil.ItemCallback<AppInfo>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AppInfo oldApp, @NonNull AppInfo newApp) {
+            return oldApp.packageName.equals(newApp.packageName);
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull AppInfo oldApp, @NonNull AppInfo newApp) {
+            return oldApp.appName.equals(newApp.appName)
+                    && oldApp.isSelected == newApp.isSelected
+                    && oldApp.isWhitelisted == newApp.isWhitelisted;
+        }
+        
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull AppInfo oldApp, @NonNull AppInfo newApp) {
+            boolean onlySelectionChanged = oldApp.appName.equals(newApp.appName)
+                    && oldApp.isWhitelisted == newApp.isWhitelisted;
+            return onlySelectionChanged ? PAYLOAD_SELECTION : null;
+        }
+    };
     
     private Context context;
-    private List<AppInfo> appList;
     private int mode;
     private OnItemClickListener listener;
     
+    // Running mode only; null hides the resource line
+    @Nullable
+    private Map<String, AppResourceProfiler.Profile> resourceProfiles;
+    
+    // Per-mode row style, resolved in the constructor
+    private final boolean showCheckBox;
+    private final String statusText;
+    private final int statusColor;
+    
+    private final View.OnClickListener clickHandler = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            AppInfo appInfo = itemFor(v);
+            if (appInfo != null && listener != null) {
+                listener.onItemClick(appInfo);
+            }
+        }
+    };
+    
+    private final View.OnLongClickListener longClickHandler = new View.OnLongClickListener() {
+        @Override
+        public boolean onLongClick(View v) {
+            AppInfo appInfo = itemFor(v);
+            if (appInfo != null && listener != null) {
+                listener.onItemLongClick(appInfo);
+            }
+            return true;
+        }
+    };
+    
     public interface OnItemClickListener {
         void onItemClick(AppInfo appInfo);
         void onItemLongClick(AppInfo appInfo);
     }
     
     public AppListAdapter(Context context, int mode) {
+        super(DIFF_CALLBACK);
         this.context = context;
         this.mode = mode;
-        this.appList = new ArrayList<>();
+        this.showCheckBox = mode != MODE_WHITELIST;
+        if (mode == MODE_WHITELIST) {
+            statusText = "WHITELISTED";
+            statusColor = COLOR_WHITELISTED;
+        } else if (mode == MODE_RUNNING) {
+            statusText = "RUNNING";
+            statusColor = COLOR_RUNNING;
+        } else {
+            // Analyze picks its status per item; the picker shows none
+            statusText = null;
+            statusColor = 0;
+        }
+        setHasStableIds(true);
     }
     
     public void setOnItemClickListener(OnItemClickListener listener) {
         this.listener = listener;
     }
     
+    /**
+     * Replace the list. The diff runs off the main thread, so getAllApps() and getItemCount()
+     * reflect the new list only once it is committed.
+     */
     public void updateAppList(List<AppInfo> newAppList) {
-        this.appList.clear();
-        this.appList.addAll(newAppList);
-        notifyDataSetChanged();
+        submitList(new ArrayList<>(newAppList));
+    }
+    
+    /**
+     * Replace the list and run the callback once the new list is committed
+     */
+    public void updateAppList(List<AppInfo> newAppList, Runnable onCommitted) {
+        submitList(new ArrayList<>(newAppList), onCommitted);
+    }
+    
+    /**
+     * Show each row's resource use from these profiles, rebinding only the resource line
+     */
+    public void setResourceProfiles(@Nullable Map<String, AppResourceProfiler.Profile> profiles) {
+        resourceProfiles = profiles;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_RESOURCES);
+    }
+    
+    /**
+     * Flip an app's selection and rebind only its row's selection views
+     */
+    public void toggleSelection(AppInfo appInfo) {
+        appInfo.isSelected = !appInfo.isSelected;
+        int position = getCurrentList().indexOf(appInfo);
+        if (position >= 0) {
+            notifyItemChanged(position, PAYLOAD_SELECTION);
+        }
     }
     
     public List<AppInfo> getAllApps() {
-        return new ArrayList<>(appList);
+        return new ArrayList<>(getCurrentList());
     }
     
     public List<AppInfo> getSelectedApps() {
         List<AppInfo> selectedApps = new ArrayList<>();
-        for (AppInfo app : appList) {
+        for (AppInfo app : getCurrentList()) {
             if (app.isSelected) {
                 selectedApps.add(app);
             }
@@ -59,76 +172,113 @@ public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.ViewHold
         return selectedApps;
     }
     
+    @Override
+    public long getItemId(int position) {
+        return stableId(getItem(position).packageName);
+    }
+    
+    /**
+     * 64-bit FNV-1a hash of the package name, so ids stay stable across refreshes
+     * and collisions are far less likely than with String.hashCode()
+     */
+    static long stableId(String packageName) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < packageName.length(); i++) {
+            hash ^= packageName.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_app, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        
+        // Everything that only depends on the mode is applied once per row view
+        holder.checkBox.setVisibility(showCheckBox ? View.VISIBLE : View.GONE);
+        holder.statusIndicator.setVisibility(statusText != null || mode == MODE_ANALYZE ? View.VISIBLE : View.GONE);
+        if (statusText != null) {
+            holder.statusIndicator.setText(statusText);
+            holder.statusIndicator.setTextColor(statusColor);
+        }
+        
+        // Listeners are attached once and look up the row's current item when clicked
+        holder.itemView.setOnClickListener(clickHandler);
+        holder.itemView.setOnLongClickListener(longClickHandler);
+        holder.checkBox.setOnClickListener(clickHandler);
+        holder.itemView.setTag(holder);
+        holder.checkBox.setTag(holder);
+        return holder;
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_SELECTION) || payloads.contains(PAYLOAD_RESOURCES)) {
+            AppInfo appInfo = getItem(position);
+            if (payloads.contains(PAYLOAD_SELECTION)) {
+                bindSelection(holder, appInfo);
+            }
+            if (payloads.contains(PAYLOAD_RESOURCES)) {
+                bindResources(holder, appInfo);
+            }
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
     }
     
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        AppInfo appInfo = appList.get(position);
+        AppInfo appInfo = getItem(position);
         
-        holder.appIcon.setImageDrawable(appInfo.icon);
+        IconLoader.getInstance(context).load(appInfo.packageName, holder.appIcon);
         holder.appName.setText(appInfo.appName);
         holder.packageName.setText(appInfo.packageName);
-        
-        // Configure based on mode
-        switch (mode) {
-            case MODE_WHITELIST:
-                holder.checkBox.setVisibility(View.GONE);
-                holder.statusIndicator.setVisibility(View.VISIBLE);
-                holder.statusIndicator.setText("WHITELISTED");
-                holder.statusIndicator.setTextColor(Color.parseColor("#4CAF50"));
-                break;
-                
-            case MODE_RUNNING:
-                holder.checkBox.setVisibility(View.VISIBLE);
-                holder.checkBox.setChecked(appInfo.isSelected);
-                holder.statusIndicator.setVisibility(View.VISIBLE);
-                holder.statusIndicator.setText("RUNNING");
-                holder.statusIndicator.setTextColor(Color.parseColor("#FF5722"));
-                break;
-                
-            case MODE_ANALYZE:
-                holder.checkBox.setVisibility(View.VISIBLE);
-                holder.checkBox.setChecked(appInfo.isSelected);
-                holder.statusIndicator.setVisibility(View.VISIBLE);
-                if (appInfo.isSelected) {
-                    holder.statusIndicator.setText("WILL STOP");
-                    holder.statusIndicator.setTextColor(Color.parseColor("#F44336"));
-                } else {
-                    holder.statusIndicator.setText("KEEP RUNNING");
-                    holder.statusIndicator.setTextColor(Color.parseColor("#4CAF50"));
-                }
-                break;
-        }
-        
-        // Set click listeners
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onItemClick(appInfo);
-            }
-        });
-        
-        holder.itemView.setOnLongClickListener(v -> {
-            if (listener != null) {
-                listener.onItemLongClick(appInfo);
-            }
-            return true;
-        });
-        
-        holder.checkBox.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onItemClick(appInfo);
-            }
-        });
+        bindSelection(holder, appInfo);
+        bindResources(holder, appInfo);
     }
     
     @Override
-    public int getItemCount() {
-        return appList.size();
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        // Drop the pending decode; a recycled row will ask again for whatever it binds next
+        IconLoader.getInstance(context).cancel(holder.appIcon);
+    }
+    
+    /**
+     * The only per-item state besides labels and icon; also the whole of a selection payload bind
+     */
+    private void bindSelection(ViewHolder holder, AppInfo appInfo) {
+        if (showCheckBox) {
+            holder.checkBox.setChecked(appInfo.isSelected);
+        }
+        if (mode == MODE_ANALYZE) {
+            holder.statusIndicator.setText(appInfo.isSelected ? STATUS_WILL_STOP : STATUS_KEEP_RUNNING);
+            holder.statusIndicator.setTextColor(appInfo.isSelected ? COLOR_STOP : COLOR_KEEP);
+        }
+    }
+    
+    private void bindResources(ViewHolder holder, AppInfo appInfo) {
+        AppResourceProfiler.Profile profile = resourceProfiles != null ? resourceProfiles.get(appInfo.packageName) : null;
+        if (profile == null || profile.summary.isEmpty()) {
+            holder.resourceText.setVisibility(View.GONE);
+        } else {
+            holder.resourceText.setText(profile.summary);
+            holder.resourceText.setVisibility(View.VISIBLE);
+        }
+    }
+    
+    /**
+     * Item for the row a click came from, or null if the row is no longer bound
+     */
+    @Nullable
+    private AppInfo itemFor(View view) {
+        Object tag = view.getTag();
+        if (!(tag instanceof ViewHolder)) {
+            return null;
+        }
+        int position = ((ViewHolder) tag).getBindingAdapterPosition();
+        return position == RecyclerView.NO_POSITION ? null : getItem(position);
     }
     
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -136,6 +286,7 @@ public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.ViewHold
         TextView appName;
         TextView packageName;
         TextView statusIndicator;
+        TextView resourceText;
         CheckBox checkBox;
         
         public ViewHolder(@NonNull View itemView) {
@@ -144,7 +295,8 @@ public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.ViewHold
             appName = itemView.findViewById(R.id.app_name);
             packageName = itemView.findViewById(R.id.package_name);
             statusIndicator = itemView.findViewById(R.id.status_indicator);
+            resourceText = itemView.findViewById(R.id.resource_text);
             checkBox = itemView.findViewById(R.id.checkbox);
         }
     }
-}
\ No newline at end of file
+}
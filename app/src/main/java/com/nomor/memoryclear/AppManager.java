@@ -1,31 +1,30 @@
 package com.nomor.memoryclear;
 
-import android.app.ActivityManager;
 import android.app.usage.UsageStats;
 import android.app.usage.UsageStatsManager;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.os.Build;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class AppManager {
     private static final String TAG = "AppManager";
     private Context context;
     private PackageManager packageManager;
-    private ActivityManager activityManager;
     private UsageStatsManager usageStatsManager;
+    private final DetectionSource detectionSource;
     
     // Cache management for immediate refresh after force stop
     private List<AppInfo> cachedRunningApps = null;
     private long lastCacheTime = 0;
     private static final long CACHE_VALIDITY_MS = 3000; // 3 seconds cache validity
-    private static final long FORCE_STOP_DETECTION_WINDOW_MS = 2 * 60 * 1000; // 2 minutes after force stop
+    
+    static final int INSTALLED_APPS_BATCH_SIZE = 20;
     
     // System apps to exclude from force stopping
     private static final String[] SYSTEM_EXCLUSIONS = {
@@ -39,13 +38,45 @@ public class AppManager {
     public AppManager(Context context) {
         this.context = context;
         this.packageManager = context.getPackageManager();
-        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
         this.usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        this.detectionSource = new AndroidDetectionSource(context);
+    }
+    
+    /**
+     * Receives installed apps in batches as their labels resolve
+     */
+    public interface InstalledAppsCallback {
+        /**
+         * @return false to stop loading
+         */
+        boolean onBatch(List<AppInfo> batch);
     }
     
     public List<AppInfo> getAllInstalledApps() {
-        List<AppInfo> appsList = new ArrayList<>();
-        List<ApplicationInfo> installedApps = packageManager.getInstalledApplications(PackageManager.GET_META_DATA);
+        final List<AppInfo> appsList = new ArrayList<>();
+        streamInstalledApps(false, INSTALLED_APPS_BATCH_SIZE, new InstalledAppsCallback() {
+            @Override
+            public boolean onBatch(List<AppInfo> batch) {
+                appsList.addAll(batch);
+                return true;
+            }
+        });
+        
+        // Sort by app name
+        Collections.sort(appsList, AppInfo.NAME_ORDER);
+        
+        return appsList;
+    }
+    
+    /**
+     * Resolve user-installed apps in batches. Only labels are loaded here; icons are left to
+     * IconLoader when a row binds. Batches are in package order, not sorted.
+     * Call from a background thread.
+     */
+    public void streamInstalledApps(boolean skipWhitelisted, int batchSize, InstalledAppsCallback callback) {
+        // No flags: metadata bundles are never read, and parsing them slows the query down
+        List<ApplicationInfo> installedApps = packageManager.getInstalledApplications(0);
+        List<AppInfo> batch = new ArrayList<>(batchSize);
         
         for (ApplicationInfo appInfo : installedApps) {
             // Skip system apps that shouldn't be shown
@@ -53,29 +84,31 @@ public class AppManager {
                 continue;
             }
             
+            boolean isWhitelisted = AppPreferences.isWhitelisted(appInfo.packageName);
+            if (skipWhitelisted && isWhitelisted) {
+                continue;
+            }
+            
             try {
                 String appName = packageManager.getApplicationLabel(appInfo).toString();
-                AppInfo app = new AppInfo(
-                    appInfo.packageName,
-                    appName,
-                    packageManager.getApplicationIcon(appInfo)
-                );
-                app.isWhitelisted = AppPreferences.isWhitelisted(appInfo.packageName);
-                appsList.add(app);
+                AppInfo app = new AppInfo(appInfo.packageName, appName);
+                app.isWhitelisted = isWhitelisted;
+                batch.add(app);
             } catch (Exception e) {
                 android.util.Log.e(TAG, "Error getting app info for " + appInfo.packageName, e);
             }
-        }
-        
-        // Sort by app name
-        Collections.sort(appsList, new Comparator<AppInfo>() {
-            @Override
-            public int compare(AppInfo a1, AppInfo a2) {
-                return a1.appName.compareToIgnoreCase(a2.appName);
+            
+            if (batch.size() >= batchSize) {
+                if (!callback.onBatch(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(batchSize);
             }
-        });
+        }
         
-        return appsList;
+        if (!batch.isEmpty()) {
+            callback.onBatch(batch);
+        }
     }
     
     public List<AppInfo> getRunningApps() {
@@ -98,6 +131,14 @@ public class AppManager {
         return getRunningAppsInternal(true);
     }
     
+    /**
+     * Full detection that never returns cached results, for unattended runs
+     */
+    public List<AppInfo> getRunningAppsFresh() {
+        clearCache();
+        return getRunningAppsInternal(false);
+    }
+    
     /**
      * Clear the cache to force fresh detection on next call
      */
@@ -109,36 +150,23 @@ public class AppManager {
     
     private List<AppInfo> getRunningAppsInternal(boolean postForceStopRefresh) {
         List<AppInfo> runningApps = new ArrayList<>();
-        Set<String> whitelistedApps = AppPreferences.getWhitelistedApps();
+        long scanStart = android.os.SystemClock.elapsedRealtime();
         
         try {
-            // Use multiple detection strategies for comprehensive app detection
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                // Strategy 1: UsageStatsManager - with optimized time window after force stop
-                addRunningAppsFromUsageStats(runningApps, whitelistedApps, postForceStopRefresh);
-                
-                // Strategy 2: ActivityManager - Process based detection (still works on newer Android)
-                addRunningAppsFromProcesses(runningApps, whitelistedApps);
-                
-                // Strategy 3: Extended recent usage detection for Android 10+
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                    addExtendedRunningAppsDetection(runningApps, whitelistedApps, postForceStopRefresh);
-                }
-                
-                // Strategy 4: Running services detection
-                addRunningServicesDetection(runningApps, whitelistedApps);
-                
-            } else {
-                // Fallback for older Android versions (Pre-Lollipop)
-                addRunningAppsFromProcesses(runningApps, whitelistedApps);
-            }
+            // Usage stats, visible processes, recent activity (Android 10+) and services;
+            // the detector deduplicates across them and sorts by name
+            RunningAppDetector detector = new RunningAppDetector(detectionSource);
+            runningApps = detector.detect(AppPreferences.getWhitelistedApps(), postForceStopRefresh);
             
-            // Remove duplicates and sort
-            removeDuplicates(runningApps);
+            for (int i = 0; i < detector.getFailures().size(); i++) {
+                android.util.Log.e(TAG, "Error in " + detector.getFailedStrategies().get(i) + " detection",
+                    detector.getFailures().get(i));
+            }
             
             // Cache the results
             cachedRunningApps = new ArrayList<>(runningApps);
             lastCacheTime = System.currentTimeMillis();
+            PerformanceMetrics.recordDetection(android.os.SystemClock.elapsedRealtime() - scanStart, runningApps.size());
             
             String refreshType = postForceStopRefresh ? " [POST-FORCE-STOP OPTIMIZED]" : "";
             android.util.Log.d(TAG, "Detected " + runningApps.size() + " running apps using enhanced detection" + refreshType);
@@ -150,280 +178,9 @@ public class AppManager {
         return runningApps;
     }
     
-    private void addRunningAppsFromUsageStats(List<AppInfo> runningApps, Set<String> whitelistedApps, boolean postForceStopRefresh) {
-        try {
-            // Optimized time window - shorter after force stop for immediate detection
-            Calendar calendar = Calendar.getInstance();
-            if (postForceStopRefresh) {
-                // Use much shorter window after force stop for accurate count
-                calendar.add(Calendar.MINUTE, -2); // Only last 2 minutes for post-force-stop detection
-                android.util.Log.d(TAG, "Using optimized 2-minute detection window after force stop");
-            } else {
-                // Normal detection window
-                calendar.add(Calendar.MINUTE, -10); // Reduced from 30 to 10 minutes for better accuracy
-            }
-            
-            long startTime = calendar.getTimeInMillis();
-            long endTime = System.currentTimeMillis();
-            
-            List<UsageStats> usageStatsList = usageStatsManager.queryUsageStats(
-                UsageStatsManager.INTERVAL_BEST, startTime, endTime);
-            
-            for (UsageStats usageStats : usageStatsList) {
-                // More strict criteria for post-force-stop detection
-                boolean isActive = false;
-                if (postForceStopRefresh) {
-                    // Very recent activity required after force stop
-                    isActive = usageStats.getLastTimeUsed() > (endTime - FORCE_STOP_DETECTION_WINDOW_MS) ||
-                              usageStats.getLastTimeVisible() > (endTime - FORCE_STOP_DETECTION_WINDOW_MS);
-                } else {
-                    // Normal detection criteria
-                    isActive = usageStats.getLastTimeUsed() > startTime || 
-                              usageStats.getTotalTimeInForeground() > 0;
-                }
-                
-                if (isActive) {
-                    String packageName = usageStats.getPackageName();
-                    
-                    // Skip critical system exclusions and whitelisted apps
-                    if (isCriticalSystemApp(packageName) || whitelistedApps.contains(packageName)) {
-                        continue;
-                    }
-                    
-                    try {
-                        ApplicationInfo appInfo = packageManager.getApplicationInfo(packageName, 0);
-                        String appName = packageManager.getApplicationLabel(appInfo).toString();
-                        
-                        AppInfo app = new AppInfo(
-                            packageName,
-                            appName,
-                            packageManager.getApplicationIcon(appInfo)
-                        );
-                        
-                        if (!containsApp(runningApps, app)) {
-                            runningApps.add(app);
-                        }
-                    } catch (PackageManager.NameNotFoundException e) {
-                        // App not found, skip
-                    }
-                }
-            }
-            
-            String detectionType = postForceStopRefresh ? " [OPTIMIZED POST-FORCE-STOP]" : "";
-            android.util.Log.d(TAG, "UsageStats detection added " + runningApps.size() + " apps" + detectionType);
-        } catch (Exception e) {
-            android.util.Log.e(TAG, "Error in UsageStats detection", e);
-        }
-    }
-    
-    private void addRunningAppsFromProcesses(List<AppInfo> runningApps, Set<String> whitelistedApps) {
-        try {
-            List<ActivityManager.RunningAppProcessInfo> runningProcesses = 
-                activityManager.getRunningAppProcesses();
-            
-            if (runningProcesses != null) {
-                for (ActivityManager.RunningAppProcessInfo processInfo : runningProcesses) {
-                    // Only consider foreground and visible processes for newer Android
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                        if (processInfo.importance > ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE) {
-                            continue;
-                        }
-                    }
-                    
-                    for (String packageName : processInfo.pkgList) {
-                        if (isCriticalSystemApp(packageName) || whitelistedApps.contains(packageName)) {
-                            continue;
-                        }
-                        
-                        try {
-                            ApplicationInfo appInfo = packageManager.getApplicationInfo(packageName, 0);
-                            String appName = packageManager.getApplicationLabel(appInfo).toString();
-                            
-                            AppInfo app = new AppInfo(
-                                packageName,
-                                appName,
-                                packageManager.getApplicationIcon(appInfo)
-                            );
-                            
-                            if (!containsApp(runningApps, app)) {
-                                runningApps.add(app);
-                            }
-                        } catch (PackageManager.NameNotFoundException e) {
-                            // App not found, skip
-                        }
-                    }
-                }
-                
-                android.util.Log.d(TAG, "Process detection added additional apps, total now: " + runningApps.size());
-            }
-        } catch (Exception e) {
-            android.util.Log.e(TAG, "Error in process detection", e);
-        }
-    }
-    
-    private void addExtendedRunningAppsDetection(List<AppInfo> runningApps, Set<String> whitelistedApps, boolean postForceStopRefresh) {
-        try {
-            // Get all installed apps and check recent activity
-            List<ApplicationInfo> installedApps = packageManager.getInstalledApplications(PackageManager.GET_META_DATA);
-            
-            // Optimized time window for different scenarios
-            Calendar recentCalendar = Calendar.getInstance();
-            if (postForceStopRefresh) {
-                recentCalendar.add(Calendar.MINUTE, -1); // Very recent - 1 minute for post-force-stop
-            } else {
-                recentCalendar.add(Calendar.MINUTE, -5); // Normal - 5 minutes for regular detection
-            }
-            long recentTime = recentCalendar.getTimeInMillis();
-            
-            List<UsageStats> recentStats = usageStatsManager.queryUsageStats(
-                UsageStatsManager.INTERVAL_BEST, recentTime, System.currentTimeMillis());
-            
-            for (ApplicationInfo appInfo : installedApps) {
-                String packageName = appInfo.packageName;
-                
-                if (isCriticalSystemApp(packageName) || whitelistedApps.contains(packageName)) {
-                    continue;
-                }
-                
-                // Check if app has recent activity
-                for (UsageStats stats : recentStats) {
-                    if (stats.getPackageName().equals(packageName)) {
-                        boolean hasRecentActivity = false;
-                        
-                        if (postForceStopRefresh) {
-                            // Stricter criteria after force stop
-                            hasRecentActivity = stats.getLastTimeUsed() > recentTime && 
-                                              stats.getLastTimeVisible() > recentTime;
-                        } else {
-                            // Normal criteria
-                            hasRecentActivity = stats.getLastTimeUsed() > recentTime || 
-                                              stats.getLastTimeVisible() > recentTime;
-                        }
-                        
-                        if (hasRecentActivity) {
-                            try {
-                                String appName = packageManager.getApplicationLabel(appInfo).toString();
-                                
-                                AppInfo app = new AppInfo(
-                                    packageName,
-                                    appName,
-                                    packageManager.getApplicationIcon(appInfo)
-                                );
-                                
-                                if (!containsApp(runningApps, app)) {
-                                    runningApps.add(app);
-                                }
-                                break;
-                            } catch (Exception e) {
-                                // Skip this app
-                            }
-                        }
-                    }
-                }
-            }
-            
-            String detectionType = postForceStopRefresh ? " [POST-FORCE-STOP OPTIMIZED]" : "";
-            android.util.Log.d(TAG, "Extended detection added more apps, total now: " + runningApps.size() + detectionType);
-        } catch (Exception e) {
-            android.util.Log.e(TAG, "Error in extended detection", e);
-        }
-    }
-    
-    private void addRunningServicesDetection(List<AppInfo> runningApps, Set<String> whitelistedApps) {
-        try {
-            List<ActivityManager.RunningServiceInfo> runningServices = 
-                activityManager.getRunningServices(Integer.MAX_VALUE);
-                
-            if (runningServices != null) {
-                for (ActivityManager.RunningServiceInfo serviceInfo : runningServices) {
-                    String packageName = serviceInfo.service.getPackageName();
-                    
-                    if (isCriticalSystemApp(packageName) || whitelistedApps.contains(packageName)) {
-                        continue;
-                    }
-                    
-                    try {
-                        ApplicationInfo appInfo = packageManager.getApplicationInfo(packageName, 0);
-                        String appName = packageManager.getApplicationLabel(appInfo).toString();
-                        
-                        AppInfo app = new AppInfo(
-                            packageName,
-                            appName,
-                            packageManager.getApplicationIcon(appInfo)
-                        );
-                        
-                        if (!containsApp(runningApps, app)) {
-                            runningApps.add(app);
-                        }
-                    } catch (PackageManager.NameNotFoundException e) {
-                        // App not found, skip
-                    }
-                }
-                
-                android.util.Log.d(TAG, "Service detection completed, total apps: " + runningApps.size());
-            }
-        } catch (Exception e) {
-            android.util.Log.e(TAG, "Error in service detection", e);
-        }
-    }
-    
-    private boolean containsApp(List<AppInfo> appList, AppInfo app) {
-        for (AppInfo existingApp : appList) {
-            if (existingApp.packageName.equals(app.packageName)) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    private void removeDuplicates(List<AppInfo> runningApps) {
-        // Remove duplicates while preserving order
-        List<AppInfo> uniqueApps = new ArrayList<>();
-        Set<String> seenPackages = new java.util.HashSet<>();
-        
-        for (AppInfo app : runningApps) {
-            if (!seenPackages.contains(app.packageName)) {
-                uniqueApps.add(app);
-                seenPackages.add(app.packageName);
-            }
-        }
-        
-        runningApps.clear();
-        runningApps.addAll(uniqueApps);
-        
-        // Sort by app name for better user experience
-        Collections.sort(runningApps, new Comparator<AppInfo>() {
-            @Override
-            public int compare(AppInfo a1, AppInfo a2) {
-                return a1.appName.compareToIgnoreCase(a2.appName);
-            }
-        });
-    }
-    
-    private boolean isCriticalSystemApp(String packageName) {
-        // More restrictive system app filtering - only exclude truly critical system apps
-        String[] criticalSystemApps = {
-            "android",
-            "com.android.systemui",
-            "com.android.launcher3",
-            "com.google.android.gms",
-            "com.nomor.memoryclear", // Our own app
-            "com.android.phone",
-            "com.android.settings",
-            "com.android.inputmethod"
-        };
-        
-        for (String systemPackage : criticalSystemApps) {
-            if (packageName.equals(systemPackage) || packageName.startsWith(systemPackage + ".")) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    
     public List<AppInfo> getExcludedRunningApps() {
         List<AppInfo> excludedApps = new ArrayList<>();
+        List<String> uninstalledApps = new ArrayList<>();
         Set<String> whitelistedApps = AppPreferences.getWhitelistedApps();
         
         for (String packageName : whitelistedApps) {
@@ -431,25 +188,54 @@ public class AppManager {
                 ApplicationInfo appInfo = packageManager.getApplicationInfo(packageName, 0);
                 String appName = packageManager.getApplicationLabel(appInfo).toString();
                 
-                AppInfo app = new AppInfo(
-                    packageName,
-                    appName,
-                    packageManager.getApplicationIcon(appInfo)
-                );
+                AppInfo app = new AppInfo(packageName, appName);
                 app.isWhitelisted = true;
                 excludedApps.add(app);
             } catch (PackageManager.NameNotFoundException e) {
                 // App not found, remove from whitelist
-                AppPreferences.removeFromWhitelist(packageName);
+                uninstalledApps.add(packageName);
             }
         }
         
+        if (!uninstalledApps.isEmpty()) {
+            AppPreferences.updateWhitelist(Collections.<String>emptyList(), uninstalledApps);
+        }
+        
         return excludedApps;
     }
     
     private boolean isSystemApp(String packageName) {
         // Delegate to the more comprehensive method
-        return isCriticalSystemApp(packageName);
+        return DetectionEngine.isCriticalSystemApp(packageName);
+    }
+    
+    /**
+     * Running apps ordered as reclaim candidates: the ones the user touched least recently
+     * come first, since they are the least likely to be reopened soon
+     */
+    public List<AppInfo> getReclaimCandidates(int maxApps) {
+        List<AppInfo> candidates = getRunningAppsFresh();
+        try {
+            long endTime = System.currentTimeMillis();
+            final Map<String, UsageStats> usage = usageStatsManager.queryAndAggregateUsageStats(
+                endTime - 24 * 60 * 60 * 1000L, endTime);
+            
+            Collections.sort(candidates, new Comparator<AppInfo>() {
+                @Override
+                public int compare(AppInfo a1, AppInfo a2) {
+                    return Long.compare(lastTimeUsed(usage, a1.packageName), lastTimeUsed(usage, a2.packageName));
+                }
+            });
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error ranking reclaim candidates", e);
+        }
+        
+        return candidates.size() > maxApps ? new ArrayList<>(candidates.subList(0, maxApps)) : candidates;
+    }
+    
+    private static long lastTimeUsed(Map<String, UsageStats> usage, String packageName) {
+        UsageStats stats = usage.get(packageName);
+        return stats != null ? stats.getLastTimeUsed() : 0;
     }
     
     public int getRunningAppsCount() {
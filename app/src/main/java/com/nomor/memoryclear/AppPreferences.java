@@ -2,14 +2,27 @@ package com.nomor.memoryclear;
 
 import android.content.Context;
 import android.content.SharedPreferences;
-import java.util.HashSet;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import org.json.JSONArray;
+import org.json.JSONException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class AppPreferences {
     private static final String PREFS_NAME = "NoMoreAppsPrefs";
     private static final String KEY_WHITELIST = "whitelist_apps";
     private static final String KEY_SCHEDULE_ENABLED = "schedule_enabled";
     private static final String KEY_SCHEDULE_TIME = "schedule_time";
+    private static final String KEY_CLEANUP_WINDOWS = "cleanup_windows";
+    private static final String KEY_MEMORY_TRIGGER_ENABLED = "memory_trigger_enabled";
+    private static final String KEY_MEMORY_TRIGGER_THRESHOLD = "memory_trigger_threshold_percent";
+    private static final String KEY_MEMORY_TRIGGER_MAX_PER_HOUR = "memory_trigger_max_per_hour";
     private static final String KEY_DOCK_ENABLED = "dock_enabled";
     private static final String KEY_FIRST_LAUNCH = "first_launch";
     private static final String KEY_PREMIUM_ACTIVE = "premium_active";
@@ -23,28 +36,86 @@ public class AppPreferences {
     
     private static SharedPreferences sPrefs;
     
+    // Immutable in-memory snapshot of the whitelist. Readers never touch SharedPreferences;
+    // writers build a new set under the lock, swap the reference and persist with apply().
+    private static volatile WhitelistSnapshot sWhitelist = WhitelistSnapshot.EMPTY;
+    private static final Object sWhitelistLock = new Object();
+    
+    // Premium expiry in epoch millis, 0 when inactive. Loaded once and flipped by a single
+    // scheduled expiry event, so reading the premium state never touches SharedPreferences.
+    private static volatile long sPremiumExpiry;
+    private static Handler sMainHandler;
+    private static final List<OnPremiumStateChangedListener> sPremiumListeners = new CopyOnWriteArrayList<>();
+    private static final Runnable sPremiumExpiryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            onPremiumExpiryReached();
+        }
+    };
+    
+    /**
+     * Notified on the main thread when premium is activated or expires
+     */
+    public interface OnPremiumStateChangedListener {
+        void onPremiumStateChanged(boolean active);
+    }
+    
     public static void init(Context context) {
         sPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        sWhitelist = WhitelistSnapshot.of(sPrefs.getStringSet(KEY_WHITELIST, Collections.<String>emptySet()));
+        
+        sMainHandler = new Handler(Looper.getMainLooper());
+        if (sPrefs.getBoolean(KEY_PREMIUM_ACTIVE, false)) {
+            sPremiumExpiry = sPrefs.getLong(KEY_PREMIUM_EXPIRY, 0);
+            schedulePremiumExpiry();
+        }
     }
     
+    /**
+     * Returns the current whitelist snapshot. The set is unmodifiable and never changes
+     * after it is returned, so callers may iterate it freely.
+     */
     public static Set<String> getWhitelistedApps() {
-        return sPrefs.getStringSet(KEY_WHITELIST, new HashSet<>());
+        return sWhitelist.asSet();
     }
     
     public static void addToWhitelist(String packageName) {
-        Set<String> whitelist = new HashSet<>(getWhitelistedApps());
-        whitelist.add(packageName);
-        sPrefs.edit().putStringSet(KEY_WHITELIST, whitelist).apply();
+        if (sWhitelist.contains(packageName)) {
+            return;
+        }
+        updateWhitelist(Collections.singleton(packageName), Collections.<String>emptySet());
     }
     
     public static void removeFromWhitelist(String packageName) {
-        Set<String> whitelist = new HashSet<>(getWhitelistedApps());
-        whitelist.remove(packageName);
-        sPrefs.edit().putStringSet(KEY_WHITELIST, whitelist).apply();
+        if (!sWhitelist.contains(packageName)) {
+            return;
+        }
+        updateWhitelist(Collections.<String>emptySet(), Collections.singleton(packageName));
+    }
+    
+    /**
+     * Apply many whitelist additions and removals as one transaction: a single copy,
+     * a single snapshot swap and a single persist. Removals win over additions.
+     */
+    public static void updateWhitelist(Collection<String> toAdd, Collection<String> toRemove) {
+        synchronized (sWhitelistLock) {
+            WhitelistSnapshot whitelist = sWhitelist.with(toAdd, toRemove);
+            if (whitelist != sWhitelist) {
+                publishWhitelist(whitelist);
+            }
+        }
     }
     
     public static boolean isWhitelisted(String packageName) {
-        return getWhitelistedApps().contains(packageName);
+        return sWhitelist.contains(packageName);
+    }
+    
+    /**
+     * Swap in a new snapshot and persist it asynchronously. Must hold sWhitelistLock.
+     */
+    private static void publishWhitelist(WhitelistSnapshot whitelist) {
+        sWhitelist = whitelist;
+        sPrefs.edit().putStringSet(KEY_WHITELIST, whitelist.asSet()).apply();
     }
     
     public static boolean isScheduleEnabled() {
@@ -63,6 +134,77 @@ public class AppPreferences {
         sPrefs.edit().putString(KEY_SCHEDULE_TIME, time).apply();
     }
     
+    /**
+     * All cleanup windows: the primary daily window built from the schedule time,
+     * followed by any additional windows the user added
+     */
+    public static List<CleanupWindow> getCleanupWindows() {
+        List<CleanupWindow> windows = new ArrayList<>();
+        try {
+            String[] timeParts = getScheduleTime().split(":");
+            windows.add(CleanupWindow.daily("Daily",
+                    Integer.parseInt(timeParts[0]), Integer.parseInt(timeParts[1])));
+        } catch (Exception e) {
+            android.util.Log.e("AppPreferences", "Invalid schedule time", e);
+            windows.add(CleanupWindow.daily("Daily", 2, 0));
+        }
+        windows.addAll(getAdditionalCleanupWindows());
+        return windows;
+    }
+    
+    public static List<CleanupWindow> getAdditionalCleanupWindows() {
+        List<CleanupWindow> windows = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(sPrefs.getString(KEY_CLEANUP_WINDOWS, "[]"));
+            for (int i = 0; i < array.length(); i++) {
+                windows.add(CleanupWindow.fromJson(array.getJSONObject(i)));
+            }
+        } catch (JSONException e) {
+            android.util.Log.e("AppPreferences", "Error reading cleanup windows", e);
+        }
+        return windows;
+    }
+    
+    public static void setAdditionalCleanupWindows(List<CleanupWindow> windows) {
+        JSONArray array = new JSONArray();
+        try {
+            for (CleanupWindow window : windows) {
+                array.put(window.toJson());
+            }
+        } catch (JSONException e) {
+            android.util.Log.e("AppPreferences", "Error saving cleanup windows", e);
+            return;
+        }
+        sPrefs.edit().putString(KEY_CLEANUP_WINDOWS, array.toString()).apply();
+    }
+    
+    public static boolean isMemoryTriggerEnabled() {
+        return sPrefs.getBoolean(KEY_MEMORY_TRIGGER_ENABLED, false);
+    }
+    
+    public static void setMemoryTriggerEnabled(boolean enabled) {
+        sPrefs.edit().putBoolean(KEY_MEMORY_TRIGGER_ENABLED, enabled).apply();
+    }
+    
+    /**
+     * Free RAM, as a percentage of total RAM, below which a memory-pressure cleanup runs
+     */
+    public static int getMemoryTriggerThreshold() {
+        return sPrefs.getInt(KEY_MEMORY_TRIGGER_THRESHOLD, 15);
+    }
+    
+    public static void setMemoryTriggerThreshold(int percent) {
+        sPrefs.edit().putInt(KEY_MEMORY_TRIGGER_THRESHOLD, percent).apply();
+    }
+    
+    public static int getMemoryTriggerMaxPerHour() {
+        return sPrefs.getInt(KEY_MEMORY_TRIGGER_MAX_PER_HOUR, 2);
+    }
+    
+    public static void setMemoryTriggerMaxPerHour(int maxPerHour) {
+        sPrefs.edit().putInt(KEY_MEMORY_TRIGGER_MAX_PER_HOUR, maxPerHour).apply();
+    }
+    
     public static boolean isDockEnabled() {
         return sPrefs.getBoolean(KEY_DOCK_ENABLED, false);
     }
@@ -80,34 +222,86 @@ public class AppPreferences {
     }
     
     // Premium functionality
+    
+    /**
+     * Side-effect free: a field load compared against the clock. Safe from any thread.
+     * The clock comparison covers the gap if the expiry event is delivered late after deep sleep.
+     */
     public static boolean isPremiumActive() {
-        boolean isActive = sPrefs.getBoolean(KEY_PREMIUM_ACTIVE, false);
-        if (isActive) {
-            // Check if premium has expired
-            long expiryTime = sPrefs.getLong(KEY_PREMIUM_EXPIRY, 0);
-            if (System.currentTimeMillis() > expiryTime) {
-                // Premium expired, deactivate
-                setPremiumActive(false);
-                return false;
-            }
-        }
-        return isActive;
+        return sPremiumExpiry > System.currentTimeMillis();
+    }
+    
+    /**
+     * Activate premium until the given epoch millis, persisted in a single write
+     */
+    public static void activatePremium(long expiryTime) {
+        sPremiumExpiry = expiryTime;
+        sPrefs.edit()
+                .putBoolean(KEY_PREMIUM_ACTIVE, true)
+                .putLong(KEY_PREMIUM_EXPIRY, expiryTime)
+                .apply();
+        schedulePremiumExpiry();
+        notifyPremiumStateChanged();
+    }
+    
+    public static long getPremiumExpiryTime() {
+        return sPremiumExpiry;
+    }
+    
+    public static void addOnPremiumStateChangedListener(OnPremiumStateChangedListener listener) {
+        sPremiumListeners.add(listener);
+    }
+    
+    public static void removeOnPremiumStateChangedListener(OnPremiumStateChangedListener listener) {
+        sPremiumListeners.remove(listener);
     }
     
-    public static void setPremiumActive(boolean active) {
-        sPrefs.edit().putBoolean(KEY_PREMIUM_ACTIVE, active).apply();
-        if (!active) {
-            // Clear expiry time when deactivating
-            sPrefs.edit().remove(KEY_PREMIUM_EXPIRY).apply();
+    /**
+     * Catch up on an expiry the scheduled event has not delivered yet. The event runs on
+     * uptime, which stops in deep sleep, so it can fire well after the wall-clock expiry.
+     * Cheap enough to call from onResume.
+     */
+    public static void checkPremiumExpiry() {
+        if (sPremiumExpiry == 0) {
+            return;
+        }
+        if (isPremiumActive()) {
+            schedulePremiumExpiry();
+        } else {
+            onPremiumExpiryReached();
         }
     }
     
-    public static void setPremiumExpiryTime(long expiryTime) {
-        sPrefs.edit().putLong(KEY_PREMIUM_EXPIRY, expiryTime).apply();
+    private static void schedulePremiumExpiry() {
+        sMainHandler.removeCallbacks(sPremiumExpiryRunnable);
+        long remaining = sPremiumExpiry - System.currentTimeMillis();
+        sMainHandler.postAtTime(sPremiumExpiryRunnable, SystemClock.uptimeMillis() + Math.max(0, remaining));
     }
     
-    public static long getPremiumExpiryTime() {
-        return sPrefs.getLong(KEY_PREMIUM_EXPIRY, 0);
+    private static void onPremiumExpiryReached() {
+        if (isPremiumActive()) {
+            // Woken early, e.g. after a wall clock change
+            schedulePremiumExpiry();
+            return;
+        }
+        sPremiumExpiry = 0;
+        sPrefs.edit()
+                .putBoolean(KEY_PREMIUM_ACTIVE, false)
+                .remove(KEY_PREMIUM_EXPIRY)
+                .apply();
+        notifyPremiumStateChanged();
+    }
+    
+    private static void notifyPremiumStateChanged() {
+        final boolean active = isPremiumActive();
+        sMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (OnPremiumStateChangedListener listener : sPremiumListeners) {
+                    listener.onPremiumStateChanged(active);
+                }
+            }
+        });
     }
     
     // Permission tracking methods
@@ -0,0 +1,250 @@
+package com.nomor.memoryclear;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Background resource use of running apps: PSS and private dirty memory, process count,
+ * running service count and the most important process state, per package.
+ *
+ * A profile takes three binder calls no matter how many packages are asked for: one
+ * getRunningAppProcesses, one getRunningServices and one getProcessMemoryInfo for every
+ * matched pid. Results are cached for CACHE_VALIDITY_MS.
+ *
+ * The platform limits what this can see. Since Android 8 the process and service lists only
+ * cover our own app, and Android 10 rate-limits getProcessMemoryInfo for other apps, so
+ * packages can come back without a profile. RSS is not exposed; PSS and private dirty are.
+ */
+public class AppResourceProfiler {
+    
+    private static final String TAG = "AppResourceProfiler";
+    private static final long CACHE_VALIDITY_MS = 5000;
+    
+    private static AppResourceProfiler sInstance;
+    
+    /**
+     * Resource use of one package, summed over its processes
+     */
+    public static class Profile {
+        public final long pssKb;
+        public final long privateDirtyKb;
+        public final int processCount;
+        public final int serviceCount;
+        public final int importance; // Most foreground of its processes; 0 if it has none
+        public final String summary;
+        
+        Profile(long pssKb, long privateDirtyKb, int processCount, int serviceCount, int importance) {
+            this.pssKb = pssKb;
+            this.privateDirtyKb = privateDirtyKb;
+            this.processCount = processCount;
+            this.serviceCount = serviceCount;
+            this.importance = importance;
+            this.summary = summarize();
+        }
+        
+        private String summarize() {
+            StringBuilder sb = new StringBuilder();
+            if (pssKb > 0) {
+                sb.append(pssKb / 1024).append(" MB");
+            }
+            if (processCount > 0) {
+                appendSeparator(sb).append(processCount).append(processCount == 1 ? " process" : " processes");
+            }
+            if (serviceCount > 0) {
+                appendSeparator(sb).append(serviceCount).append(serviceCount == 1 ? " service" : " services");
+            }
+            if (importance > 0) {
+                appendSeparator(sb).append(importanceLabel(importance));
+            }
+            return sb.toString();
+        }
+        
+        private static StringBuilder appendSeparator(StringBuilder sb) {
+            return sb.length() > 0 ? sb.append(" · ") : sb;
+        }
+    }
+    
+    /**
+     * Orders apps by memory cost, largest first; apps without a measurement go last, by name
+     */
+    public static class MemoryOrder implements Comparator<AppInfo> {
+        private final Map<String, Profile> profiles;
+        
+        public MemoryOrder(Map<String, Profile> profiles) {
+            this.profiles = profiles;
+        }
+        
+        @Override
+        public int compare(AppInfo a1, AppInfo a2) {
+            long pss1 = pssOf(a1);
+            long pss2 = pssOf(a2);
+            if (pss1 != pss2) {
+                return pss1 > pss2 ? -1 : 1;
+            }
+            return AppInfo.NAME_ORDER.compare(a1, a2);
+        }
+        
+        private long pssOf(AppInfo app) {
+            Profile profile = profiles.get(app.packageName);
+            return profile != null ? profile.pssKb : 0;
+        }
+    }
+    
+    private final ActivityManager activityManager;
+    
+    // Guarded by this
+    private Map<String, Profile> cachedProfiles = Collections.emptyMap();
+    private Set<String> cachedPackages = Collections.emptySet();
+    private long cacheTime;
+    
+    public static synchronized AppResourceProfiler getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new AppResourceProfiler(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+    
+    private AppResourceProfiler(Context context) {
+        this.activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+    }
+    
+    /**
+     * Profiles of the given packages that have anything to report. Does binder calls, so call
+     * it off the main thread.
+     */
+    public synchronized Map<String, Profile> profile(Collection<String> packages) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - cacheTime < CACHE_VALIDITY_MS && cachedPackages.containsAll(packages)) {
+            return cachedProfiles;
+        }
+        
+        Map<String, Profile> profiles = Collections.emptyMap();
+        try {
+            profiles = collect(new HashSet<>(packages));
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error profiling apps", e);
+        }
+        
+        cachedProfiles = Collections.unmodifiableMap(profiles);
+        cachedPackages = new HashSet<>(packages);
+        cacheTime = now;
+        return cachedProfiles;
+    }
+    
+    private Map<String, Profile> collect(Set<String> packages) {
+        if (activityManager == null || packages.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        // Processes of the requested packages; a shared process counts for each of its packages
+        Map<String, List<Integer>> pidsByPackage = new HashMap<>();
+        Map<String, Integer> importanceByPackage = new HashMap<>();
+        List<Integer> allPids = new ArrayList<>();
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager.getRunningAppProcesses();
+        if (processes != null) {
+            for (ActivityManager.RunningAppProcessInfo process : processes) {
+                if (process.pkgList == null) {
+                    continue;
+                }
+                boolean matched = false;
+                for (String packageName : process.pkgList) {
+                    if (!packages.contains(packageName)) {
+                        continue;
+                    }
+                    matched = true;
+                    List<Integer> pids = pidsByPackage.get(packageName);
+                    if (pids == null) {
+                        pids = new ArrayList<>();
+                        pidsByPackage.put(packageName, pids);
+                    }
+                    pids.add(process.pid);
+                    Integer importance = importanceByPackage.get(packageName);
+                    if (importance == null || process.importance < importance) {
+                        importanceByPackage.put(packageName, process.importance);
+                    }
+                }
+                if (matched) {
+                    allPids.add(process.pid);
+                }
+            }
+        }
+        
+        Map<String, Integer> serviceCounts = new HashMap<>();
+        List<ActivityManager.RunningServiceInfo> services = activityManager.getRunningServices(Integer.MAX_VALUE);
+        if (services != null) {
+            for (ActivityManager.RunningServiceInfo service : services) {
+                String packageName = service.service.getPackageName();
+                if (packages.contains(packageName)) {
+                    Integer count = serviceCounts.get(packageName);
+                    serviceCounts.put(packageName, count == null ? 1 : count + 1);
+                }
+            }
+        }
+        
+        // One batched call for every matched process
+        Map<Integer, Debug.MemoryInfo> memoryByPid = new HashMap<>();
+        if (!allPids.isEmpty()) {
+            int[] pidArray = new int[allPids.size()];
+            for (int i = 0; i < pidArray.length; i++) {
+                pidArray[i] = allPids.get(i);
+            }
+            Debug.MemoryInfo[] infos = activityManager.getProcessMemoryInfo(pidArray);
+            if (infos != null) {
+                for (int i = 0; i < infos.length && i < pidArray.length; i++) {
+                    memoryByPid.put(pidArray[i], infos[i]);
+                }
+            }
+        }
+        
+        Map<String, Profile> profiles = new HashMap<>();
+        for (String packageName : packages) {
+            List<Integer> pids = pidsByPackage.get(packageName);
+            Integer serviceCount = serviceCounts.get(packageName);
+            if (pids == null && serviceCount == null) {
+                continue;
+            }
+            
+            long pssKb = 0;
+            long privateDirtyKb = 0;
+            if (pids != null) {
+                for (int pid : pids) {
+                    Debug.MemoryInfo info = memoryByPid.get(pid);
+                    if (info != null) {
+                        pssKb += info.getTotalPss();
+                        privateDirtyKb += info.getTotalPrivateDirty();
+                    }
+                }
+            }
+            Integer importance = importanceByPackage.get(packageName);
+            profiles.put(packageName, new Profile(pssKb, privateDirtyKb,
+                pids != null ? pids.size() : 0,
+                serviceCount != null ? serviceCount : 0,
+                importance != null ? importance : 0));
+        }
+        return profiles;
+    }
+    
+    static String importanceLabel(int importance) {
+        if (importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND) {
+            return "Foreground";
+        } else if (importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE) {
+            return "Visible";
+        } else if (importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_PERCEPTIBLE) {
+            return "Perceptible";
+        } else if (importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_SERVICE) {
+            return "Service";
+        }
+        return "Background";
+    }
+}
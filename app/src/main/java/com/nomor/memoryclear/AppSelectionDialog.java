@@ -3,10 +3,13 @@ package com.nomor.memoryclear;
 import android.app.Dialog;
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.View;
 import android.view.Window;
+import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.TextView;
@@ -14,34 +17,126 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class AppSelectionDialog extends Dialog {
     
+    private static final String TAG = "AppSelectionDialog";
+    
+    // Coalesces a burst of keystrokes into one search
+    private static final long SEARCH_DEBOUNCE_MS = 100;
+    
     private List<AppInfo> appList;
     private List<AppInfo> filteredList;
     private AppListAdapter adapter;
-    private OnAppSelectedListener listener;
+    private OnAppsSelectedListener listener;
     
     private EditText searchEdit;
     private RecyclerView recyclerView;
     private ImageButton closeButton;
+    private Button confirmButton;
     private TextView titleText;
     
-    public interface OnAppSelectedListener {
-        void onAppSelected(AppInfo appInfo);
+    // The index is built and queried only on this thread
+    private final ScheduledExecutorService searchExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final AppSearchIndex searchIndex = new AppSearchIndex();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private AppSearchIndex.Result lastResult;
+    private ScheduledFuture<?> pendingSearch;
+    private String currentQuery = "";
+    private boolean loading;
+    private volatile boolean closed;
+    
+    public interface OnAppsSelectedListener {
+        void onAppsSelected(List<AppInfo> selectedApps);
     }
     
     public AppSelectionDialog(@NonNull Context context, List<AppInfo> appList) {
         super(context);
         this.appList = new ArrayList<>(appList);
         this.filteredList = new ArrayList<>(appList);
+        
+        // Nothing is picked until the user taps it
+        for (AppInfo app : this.appList) {
+            app.isSelected = false;
+        }
+        
+        final List<AppInfo> indexed = this.appList;
+        searchExecutor.execute(() -> searchIndex.addAll(indexed));
     }
     
-    public void setOnAppSelectedListener(OnAppSelectedListener listener) {
+    public void setOnAppsSelectedListener(OnAppsSelectedListener listener) {
         this.listener = listener;
     }
     
+    /**
+     * Merge a batch of apps into the sorted list while the dialog is open. Call on the main thread.
+     */
+    public void addApps(List<AppInfo> batch) {
+        if (closed || batch.isEmpty()) {
+            return;
+        }
+        
+        final List<AppInfo> sortedBatch = new ArrayList<>(batch);
+        Collections.sort(sortedBatch, AppInfo.NAME_ORDER);
+        for (AppInfo app : sortedBatch) {
+            app.isSelected = false;
+        }
+        
+        // Linear merge of two sorted lists keeps appList sorted without re-sorting it
+        List<AppInfo> merged = new ArrayList<>(appList.size() + sortedBatch.size());
+        int i = 0;
+        int j = 0;
+        while (i < appList.size() && j < sortedBatch.size()) {
+            if (AppInfo.NAME_ORDER.compare(appList.get(i), sortedBatch.get(j)) <= 0) {
+                merged.add(appList.get(i++));
+            } else {
+                merged.add(sortedBatch.get(j++));
+            }
+        }
+        merged.addAll(appList.subList(i, appList.size()));
+        merged.addAll(sortedBatch.subList(j, sortedBatch.size()));
+        appList = merged;
+        
+        try {
+            searchExecutor.execute(() -> searchIndex.addAll(sortedBatch));
+            searchExecutor.execute(() -> runSearch(currentQuery));
+        } catch (RejectedExecutionException e) {
+            // Dialog already dismissed
+        }
+    }
+    
+    /**
+     * Show that more apps are still streaming in
+     */
+    public void setLoading(boolean loading) {
+        this.loading = loading;
+        if (titleText != null) {
+            titleText.setText(loading ? "Loading apps..." : "Select Apps to Whitelist");
+        }
+    }
+    
+    public boolean isLoading() {
+        return loading;
+    }
+    
+    /**
+     * True once the dialog is dismissed; loaders can stop feeding it
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    public int getAppCount() {
+        return appList.size();
+    }
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -58,21 +153,20 @@ public class AppSelectionDialog extends Dialog {
         searchEdit = findViewById(R.id.search_edit);
         recyclerView = findViewById(R.id.recycler_view);
         closeButton = findViewById(R.id.btn_close);
+        confirmButton = findViewById(R.id.btn_confirm);
         titleText = findViewById(R.id.title_text);
         
-        titleText.setText("Select App to Whitelist");
+        setLoading(loading);
     }
     
     private void setupRecyclerView() {
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new AppListAdapter(getContext(), AppListAdapter.MODE_WHITELIST);
+        adapter = new AppListAdapter(getContext(), AppListAdapter.MODE_PICKER);
         adapter.setOnItemClickListener(new AppListAdapter.OnItemClickListener() {
             @Override
             public void onItemClick(AppInfo appInfo) {
-                if (listener != null) {
-                    listener.onAppSelected(appInfo);
-                }
-                dismiss();
+                adapter.toggleSelection(appInfo);
+                updateConfirmButton();
             }
             
             @Override
@@ -86,6 +180,31 @@ public class AppSelectionDialog extends Dialog {
     
     private void setupClickListeners() {
         closeButton.setOnClickListener(v -> dismiss());
+        
+        confirmButton.setOnClickListener(v -> {
+            List<AppInfo> selectedApps = getSelectedApps();
+            if (listener != null && !selectedApps.isEmpty()) {
+                listener.onAppsSelected(selectedApps);
+            }
+            dismiss();
+        });
+    }
+    
+    private List<AppInfo> getSelectedApps() {
+        // Selection survives filtering, so collect from the full list
+        List<AppInfo> selectedApps = new ArrayList<>();
+        for (AppInfo app : appList) {
+            if (app.isSelected) {
+                selectedApps.add(app);
+            }
+        }
+        return selectedApps;
+    }
+    
+    private void updateConfirmButton() {
+        int selectedCount = getSelectedApps().size();
+        confirmButton.setEnabled(selectedCount > 0);
+        confirmButton.setText(selectedCount > 0 ? "Add " + selectedCount + " to Whitelist" : "Add to Whitelist");
     }
     
     private void setupSearch() {
@@ -104,20 +223,41 @@ public class AppSelectionDialog extends Dialog {
     }
     
     private void filterApps(String query) {
-        filteredList.clear();
-        
-        if (query.isEmpty()) {
-            filteredList.addAll(appList);
-        } else {
-            String lowerQuery = query.toLowerCase();
-            for (AppInfo app : appList) {
-                if (app.appName.toLowerCase().contains(lowerQuery) ||
-                    app.packageName.toLowerCase().contains(lowerQuery)) {
-                    filteredList.add(app);
-                }
-            }
+        currentQuery = query;
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
         }
-        
-        adapter.updateAppList(filteredList);
+        try {
+            pendingSearch = searchExecutor.schedule(() -> runSearch(query), SEARCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Dialog already dismissed
+        }
+    }
+    
+    /**
+     * Runs on the search thread; narrows from the previous result when the query only grew
+     */
+    private void runSearch(String query) {
+        try {
+            lastResult = searchIndex.search(query, lastResult);
+            List<AppInfo> matches = searchIndex.getApps(lastResult);
+            
+            // Index order follows arrival; each streamed batch is a sorted run, which TimSort merges cheaply
+            Collections.sort(matches, AppInfo.NAME_ORDER);
+            mainHandler.post(() -> {
+                filteredList = matches;
+                adapter.updateAppList(matches);
+            });
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error searching apps", e);
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        closed = true;
+        searchExecutor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
     }
-}
\ No newline at end of file
+}
@@ -16,12 +16,8 @@ public class BootReceiver extends BroadcastReceiver {
             
             android.util.Log.d(TAG, "Boot completed or app updated - starting services");
             
-            // Restart schedule service if enabled
-            if (AppPreferences.isScheduleEnabled()) {
-                Intent scheduleIntent = new Intent(context, ScheduleService.class);
-                scheduleIntent.setAction("START_SCHEDULE");
-                context.startService(scheduleIntent);
-            }
+            // WorkManager persists jobs across reboots; re-sync so an update picks up schedule changes
+            CleanupScheduler.sync(context);
             
             // Restart dock service if enabled
             if (AppPreferences.isDockEnabled()) {
@@ -0,0 +1,239 @@
+package com.nomor.memoryclear;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps the user's cleanup windows (and the memory-pressure monitor) onto unique WorkManager
+ * jobs. Nothing stays resident between runs: the system wakes the process for a job and
+ * lets it die afterwards.
+ *
+ * Interval windows are periodic jobs. Daily windows are one-off jobs aimed at the next
+ * occurrence, which the worker re-queues after each run: a 1-day periodic job would start
+ * each day's period from whenever the last run happened to start, drifting later every day.
+ */
+public class CleanupScheduler {
+    
+    private static final String TAG = "CleanupScheduler";
+    private static final String PREFS_NAME = "CleanupSchedulerPrefs";
+    
+    private static final String WORK_PREFIX_CLEANUP = "cleanup:";
+    private static final String WORK_PREFIX_WARNING = "warning:";
+    private static final String WORK_MEMORY_MONITOR = "monitor:memory";
+    
+    static final long WARNING_LEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long SCREEN_ON_BACKOFF_MINUTES = 10;
+    
+    /**
+     * Bring the enqueued work in line with the current preferences. Unchanged windows keep
+     * their existing job, edited ones are re-enqueued and removed ones are cancelled.
+     */
+    public static synchronized void sync(Context context) {
+        try {
+            Context appContext = context.getApplicationContext();
+            WorkManager workManager = WorkManager.getInstance(appContext);
+            SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            
+            Map<String, String> wanted = new HashMap<>();
+            if (AppPreferences.isScheduleEnabled()) {
+                List<CleanupWindow> windows = AppPreferences.getCleanupWindows();
+                for (CleanupWindow window : windows) {
+                    wanted.put(WORK_PREFIX_CLEANUP + window.name, signatureOf(window));
+                    if (window.type == CleanupWindow.TYPE_DAILY) {
+                        wanted.put(WORK_PREFIX_WARNING + window.name, signatureOf(window));
+                    }
+                }
+                
+                for (CleanupWindow window : windows) {
+                    enqueueWindow(workManager, prefs, window);
+                }
+            }
+            
+            if (AppPreferences.isMemoryTriggerEnabled()) {
+                wanted.put(WORK_MEMORY_MONITOR, "sample");
+                enqueueMemoryMonitor(workManager, prefs);
+            } else {
+                workManager.cancelUniqueWork(MemoryPressureMonitor.WORK_NAME);
+            }
+            
+            // Cancel jobs for windows that were removed or when the schedule is disabled
+            SharedPreferences.Editor editor = prefs.edit();
+            for (String workName : prefs.getAll().keySet()) {
+                if (!wanted.containsKey(workName)) {
+                    workManager.cancelUniqueWork(workName);
+                    editor.remove(workName);
+                }
+            }
+            for (Map.Entry<String, String> entry : wanted.entrySet()) {
+                editor.putString(entry.getKey(), entry.getValue());
+            }
+            editor.apply();
+            
+            android.util.Log.d(TAG, "Synced " + wanted.size() + " scheduled jobs");
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error syncing cleanup schedule", e);
+        }
+    }
+    
+    private static void enqueueWindow(WorkManager workManager, SharedPreferences prefs, CleanupWindow window) {
+        String signature = signatureOf(window);
+        String cleanupName = WORK_PREFIX_CLEANUP + window.name;
+        
+        if (window.type == CleanupWindow.TYPE_DAILY) {
+            long now = System.currentTimeMillis();
+            String warningName = WORK_PREFIX_WARNING + window.name;
+            workManager.enqueueUniqueWork(cleanupName, oneTimePolicyFor(prefs, cleanupName, signature),
+                    buildDailyCleanup(window, now));
+            workManager.enqueueUniqueWork(warningName, oneTimePolicyFor(prefs, warningName, signature),
+                    buildDailyWarning(window, now));
+            return;
+        }
+        
+        long interval = Math.max(window.intervalMinutes,
+                TimeUnit.MILLISECONDS.toMinutes(PeriodicWorkRequest.MIN_PERIODIC_INTERVAL_MILLIS));
+        PeriodicWorkRequest cleanupRequest = new PeriodicWorkRequest.Builder(
+                ScheduledCleanupWorker.class, interval, TimeUnit.MINUTES)
+                .setConstraints(buildConstraints(window))
+                // Screen-off is not a WorkManager constraint; the worker retries while the screen is on
+                .setBackoffCriteria(BackoffPolicy.LINEAR, SCREEN_ON_BACKOFF_MINUTES, TimeUnit.MINUTES)
+                .setInputData(cleanupInput(window).build())
+                .addTag(TAG)
+                .build();
+        workManager.enqueueUniquePeriodicWork(cleanupName, policyFor(prefs, cleanupName, signature), cleanupRequest);
+    }
+    
+    /**
+     * Queue the next occurrence of a daily window's cleanup or warning. Called by the worker
+     * while the current run is still active, so the new job is appended behind it rather than
+     * replacing (and cancelling) it. Does nothing if the window is gone or no longer daily.
+     */
+    static void scheduleNextDailyRun(Context context, String windowName, String mode) {
+        try {
+            if (!AppPreferences.isScheduleEnabled()) {
+                return;
+            }
+            CleanupWindow window = null;
+            for (CleanupWindow candidate : AppPreferences.getCleanupWindows()) {
+                if (candidate.name.equals(windowName)) {
+                    window = candidate;
+                    break;
+                }
+            }
+            if (window == null || window.type != CleanupWindow.TYPE_DAILY) {
+                return;
+            }
+            
+            long now = System.currentTimeMillis();
+            WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+            if (ScheduledCleanupWorker.MODE_WARNING.equals(mode)) {
+                workManager.enqueueUniqueWork(WORK_PREFIX_WARNING + windowName,
+                        ExistingWorkPolicy.APPEND_OR_REPLACE, buildDailyWarning(window, now));
+            } else {
+                workManager.enqueueUniqueWork(WORK_PREFIX_CLEANUP + windowName,
+                        ExistingWorkPolicy.APPEND_OR_REPLACE, buildDailyCleanup(window, now));
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error scheduling next run for " + windowName, e);
+        }
+    }
+    
+    private static OneTimeWorkRequest buildDailyCleanup(CleanupWindow window, long now) {
+        return new OneTimeWorkRequest.Builder(ScheduledCleanupWorker.class)
+                .setInitialDelay(window.millisUntilNextRun(now), TimeUnit.MILLISECONDS)
+                .setConstraints(buildConstraints(window))
+                .setBackoffCriteria(BackoffPolicy.LINEAR, SCREEN_ON_BACKOFF_MINUTES, TimeUnit.MINUTES)
+                .setInputData(cleanupInput(window)
+                        .putBoolean(ScheduledCleanupWorker.KEY_REPEAT_DAILY, true)
+                        .build())
+                .addTag(TAG)
+                .build();
+    }
+    
+    private static OneTimeWorkRequest buildDailyWarning(CleanupWindow window, long now) {
+        // The next run at least WARNING_LEAD_MILLIS away, less the lead
+        return new OneTimeWorkRequest.Builder(ScheduledCleanupWorker.class)
+                .setInitialDelay(window.millisUntilNextRun(now + WARNING_LEAD_MILLIS), TimeUnit.MILLISECONDS)
+                .setInputData(new Data.Builder()
+                        .putString(ScheduledCleanupWorker.KEY_MODE, ScheduledCleanupWorker.MODE_WARNING)
+                        .putString(ScheduledCleanupWorker.KEY_WINDOW_NAME, window.name)
+                        .putBoolean(ScheduledCleanupWorker.KEY_REPEAT_DAILY, true)
+                        .build())
+                .addTag(TAG)
+                .build();
+    }
+    
+    private static Constraints buildConstraints(CleanupWindow window) {
+        Constraints.Builder constraints = new Constraints.Builder()
+                .setRequiresCharging(window.requiresCharging);
+        if (window.requiresIdle && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            constraints.setRequiresDeviceIdle(true);
+        }
+        return constraints.build();
+    }
+    
+    private static Data.Builder cleanupInput(CleanupWindow window) {
+        return new Data.Builder()
+                .putString(ScheduledCleanupWorker.KEY_MODE, ScheduledCleanupWorker.MODE_CLEANUP)
+                .putString(ScheduledCleanupWorker.KEY_WINDOW_NAME, window.name)
+                .putBoolean(ScheduledCleanupWorker.KEY_REQUIRES_SCREEN_OFF, window.requiresScreenOff);
+    }
+    
+    /**
+     * The window's schedule signature, marked for daily windows so jobs enqueued as 1-day
+     * periodic work by earlier versions are replaced rather than kept
+     */
+    private static String signatureOf(CleanupWindow window) {
+        String signature = window.getScheduleSignature();
+        return window.type == CleanupWindow.TYPE_DAILY ? "once|" + signature : signature;
+    }
+    
+    /**
+     * Background sampling for the memory-pressure trigger. onTrimMemory only reaches us while
+     * the process is alive, so a cheap periodic sample covers the time in between.
+     */
+    private static void enqueueMemoryMonitor(WorkManager workManager, SharedPreferences prefs) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(ScheduledCleanupWorker.class,
+                PeriodicWorkRequest.MIN_PERIODIC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                .setInputData(new Data.Builder()
+                        .putString(ScheduledCleanupWorker.KEY_MODE, ScheduledCleanupWorker.MODE_MEMORY_SAMPLE)
+                        .build())
+                .addTag(TAG)
+                .build();
+        workManager.enqueueUniquePeriodicWork(WORK_MEMORY_MONITOR,
+                policyFor(prefs, WORK_MEMORY_MONITOR, "sample"), request);
+    }
+    
+    /**
+     * Keep an existing job when nothing about its window changed, so re-syncing
+     * (e.g. after boot) does not reset the next run time
+     */
+    private static ExistingPeriodicWorkPolicy policyFor(SharedPreferences prefs, String workName, String signature) {
+        return signature.equals(prefs.getString(workName, null))
+                ? ExistingPeriodicWorkPolicy.KEEP
+                : ExistingPeriodicWorkPolicy.CANCEL_AND_REENQUEUE;
+    }
+    
+    /**
+     * One-off counterpart of policyFor(); KEEP only holds while the job is still pending
+     */
+    private static ExistingWorkPolicy oneTimePolicyFor(SharedPreferences prefs, String workName, String signature) {
+        return signature.equals(prefs.getString(workName, null))
+                ? ExistingWorkPolicy.KEEP
+                : ExistingWorkPolicy.REPLACE;
+    }
+}
@@ -0,0 +1,127 @@
+package com.nomor.memoryclear;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * A named cleanup schedule: either a daily time of day or a fixed repeat interval,
+ * optionally restricted to while charging, while idle or while the screen is off.
+ */
+public class CleanupWindow {
+    
+    public static final int TYPE_DAILY = 0;
+    public static final int TYPE_INTERVAL = 1;
+    
+    public String name;
+    public int type;
+    public int hour;
+    public int minute;
+    public int intervalMinutes;
+    public boolean requiresCharging;
+    public boolean requiresIdle;
+    public boolean requiresScreenOff;
+    
+    public static CleanupWindow daily(String name, int hour, int minute) {
+        CleanupWindow window = new CleanupWindow();
+        window.name = name;
+        window.type = TYPE_DAILY;
+        window.hour = hour;
+        window.minute = minute;
+        return window;
+    }
+    
+    public static CleanupWindow interval(String name, int intervalMinutes) {
+        CleanupWindow window = new CleanupWindow();
+        window.name = name;
+        window.type = TYPE_INTERVAL;
+        window.intervalMinutes = intervalMinutes;
+        return window;
+    }
+    
+    /**
+     * Milliseconds from now until the next daily occurrence of this window's time
+     */
+    public long millisUntilNextRun(long now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, hour);
+        calendar.set(Calendar.MINUTE, minute);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        
+        // If the time has already passed today, schedule for tomorrow
+        if (calendar.getTimeInMillis() <= now) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return calendar.getTimeInMillis() - now;
+    }
+    
+    public String getTimeText() {
+        return String.format(Locale.US, "%02d:%02d", hour, minute);
+    }
+    
+    /**
+     * Human readable summary, e.g. "Daily at 02:00 · charging, screen off"
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        if (type == TYPE_DAILY) {
+            sb.append("Daily at ").append(getTimeText());
+        } else if (intervalMinutes % 60 == 0) {
+            sb.append("Every ").append(intervalMinutes / 60).append(" h");
+        } else {
+            sb.append("Every ").append(intervalMinutes).append(" min");
+        }
+        
+        String separator = " · ";
+        if (requiresCharging) {
+            sb.append(separator).append("charging");
+            separator = ", ";
+        }
+        if (requiresIdle) {
+            sb.append(separator).append("idle");
+            separator = ", ";
+        }
+        if (requiresScreenOff) {
+            sb.append(separator).append("screen off");
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Compact string of everything that affects scheduling, used to detect changed windows
+     */
+    public String getScheduleSignature() {
+        return type + "|" + hour + ":" + minute + "|" + intervalMinutes + "|"
+                + requiresCharging + "|" + requiresIdle + "|" + requiresScreenOff;
+    }
+    
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("name", name);
+        json.put("type", type);
+        json.put("hour", hour);
+        json.put("minute", minute);
+        json.put("intervalMinutes", intervalMinutes);
+        json.put("requiresCharging", requiresCharging);
+        json.put("requiresIdle", requiresIdle);
+        json.put("requiresScreenOff", requiresScreenOff);
+        return json;
+    }
+    
+    public static CleanupWindow fromJson(JSONObject json) {
+        CleanupWindow window = new CleanupWindow();
+        window.name = json.optString("name", "Cleanup");
+        window.type = json.optInt("type", TYPE_DAILY);
+        window.hour = json.optInt("hour", 2);
+        window.minute = json.optInt("minute", 0);
+        window.intervalMinutes = json.optInt("intervalMinutes", 0);
+        window.requiresCharging = json.optBoolean("requiresCharging", false);
+        window.requiresIdle = json.optBoolean("requiresIdle", false);
+        window.requiresScreenOff = json.optBoolean("requiresScreenOff", false);
+        return window;
+    }
+}
@@ -3,6 +3,7 @@ package com.nomor.memoryclear;
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
+import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.view.View;
@@ -18,6 +19,7 @@ import androidx.cardview.widget.CardView;
 
 import org.json.JSONObject;
 
+import java.io.File;
 import java.util.List;
 
 public class ErrorLogActivity extends AppCompatActivity {
@@ -28,16 +30,19 @@ public class ErrorLogActivity extends AppCompatActivity {
     private TextView titleText;
     private TextView logCountText;
     private Button copyAllButton;
+    private Button exportButton;
     private Button clearLogsButton;
     private ScrollView scrollView;
     private LinearLayout logsContainer;
     private TextView noLogsText;
     
     private ErrorLogger errorLogger;
+    private TaskScope taskScope;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        taskScope = new TaskScope(this);
         setContentView(R.layout.activity_error_log);
         
         errorLogger = ErrorLogger.getInstance(this);
@@ -56,6 +61,7 @@ public class ErrorLogActivity extends AppCompatActivity {
             titleText = findViewById(R.id.title_text);
             logCountText = findViewById(R.id.log_count_text);
             copyAllButton = findViewById(R.id.btn_copy_all);
+            exportButton = findViewById(R.id.btn_export_logs);
             clearLogsButton = findViewById(R.id.btn_clear_logs);
             scrollView = findViewById(R.id.scroll_view);
             logsContainer = findViewById(R.id.logs_container);
@@ -85,6 +91,14 @@ public class ErrorLogActivity extends AppCompatActivity {
                 copyAllButton.setOnClickListener(v -> copyAllLogs());
             }
             
+            if (exportButton != null) {
+                exportButton.setOnClickListener(v -> exportLogs(false));
+                exportButton.setOnLongClickListener(v -> {
+                    showExportSnapshotDialog();
+                    return true;
+                });
+            }
+            
             if (clearLogsButton != null) {
                 clearLogsButton.setOnClickListener(v -> showClearLogsDialog());
             }
@@ -94,22 +108,31 @@ public class ErrorLogActivity extends AppCompatActivity {
     }
     
     private void loadErrorLogs() {
-        try {
+        // Reading waits for the log writer, so it never runs on the main thread
+        taskScope.launch(AppExecutors.io(), () -> {
             List<JSONObject> logs = errorLogger.getAllLogs();
+            // getAllLogs() only returns the newest entries; the store knows the real total
+            int totalLogs = Math.max(errorLogger.getLogCount(), logs.size());
             
-            if (logCountText != null) {
-                logCountText.setText("Total Logs: " + logs.size());
-            }
-            
-            if (logs.isEmpty()) {
-                showNoLogsMessage();
-            } else {
-                showLogEntries(logs);
-            }
-        } catch (Exception e) {
-            errorLogger.logError(TAG, "Error loading error logs", e);
-            showNoLogsMessage();
-        }
+            taskScope.runOnMain(() -> {
+                try {
+                    if (logCountText != null) {
+                        logCountText.setText(totalLogs > logs.size()
+                            ? "Total Logs: " + totalLogs + " (showing latest " + logs.size() + ")"
+                            : "Total Logs: " + totalLogs);
+                    }
+                    
+                    if (logs.isEmpty()) {
+                        showNoLogsMessage();
+                    } else {
+                        showLogEntries(logs);
+                    }
+                } catch (Exception e) {
+                    errorLogger.logError(TAG, "Error loading error logs", e);
+                    showNoLogsMessage();
+                }
+            });
+        });
     }
     
     private void showNoLogsMessage() {
@@ -124,6 +147,9 @@ public class ErrorLogActivity extends AppCompatActivity {
             if (copyAllButton != null) {
                 copyAllButton.setEnabled(false);
             }
+            if (exportButton != null) {
+                exportButton.setEnabled(false);
+            }
             if (clearLogsButton != null) {
                 clearLogsButton.setEnabled(false);
             }
@@ -143,6 +169,9 @@ public class ErrorLogActivity extends AppCompatActivity {
             if (copyAllButton != null) {
                 copyAllButton.setEnabled(true);
             }
+            if (exportButton != null) {
+                exportButton.setEnabled(true);
+            }
             if (clearLogsButton != null) {
                 clearLogsButton.setEnabled(true);
             }
@@ -183,7 +212,7 @@ public class ErrorLogActivity extends AppCompatActivity {
             entryNumberText.setTextColor(Color.parseColor("#2C2C2C"));
             
             TextView timestampText = new TextView(this);
-            timestampText.setText(log.optString("timestamp", "Unknown time"));
+            timestampText.setText(ErrorLogger.formatTimestamp(log));
             timestampText.setTextSize(12);
             timestampText.setTextColor(Color.parseColor("#666666"));
             
@@ -277,21 +306,59 @@ public class ErrorLogActivity extends AppCompatActivity {
     }
     
     private void copyAllLogs() {
-        try {
+        taskScope.launch(AppExecutors.io(), () -> {
             String allLogs = errorLogger.getFormattedLogs();
-            copyToClipboard("All Error Logs", allLogs);
-            Toast.makeText(this, "All logs copied to clipboard", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            errorLogger.logError(TAG, "Error copying all logs", e);
-            Toast.makeText(this, "Failed to copy logs", Toast.LENGTH_SHORT).show();
+            
+            taskScope.runOnMain(() -> {
+                try {
+                    copyToClipboard("All Error Logs", allLogs);
+                    Toast.makeText(this, "All logs copied to clipboard", Toast.LENGTH_SHORT).show();
+                } catch (Exception e) {
+                    errorLogger.logError(TAG, "Error copying all logs", e);
+                    Toast.makeText(this, "Failed to copy logs", Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+    }
+    
+    /**
+     * @param detectionSnapshot export the detection snapshot instead of the logs
+     */
+    private void exportLogs(boolean detectionSnapshot) {
+        if (exportButton != null) {
+            exportButton.setEnabled(false);
         }
+        Toast.makeText(this, "Exporting logs...", Toast.LENGTH_SHORT).show();
+        
+        taskScope.launch(AppExecutors.io(), () -> {
+            try {
+                LogExporter exporter = new LogExporter(this);
+                File exportFile = detectionSnapshot ? exporter.exportDetectionSnapshot() : exporter.export();
+                Intent shareIntent = exporter.createShareIntent(exportFile);
+                
+                taskScope.runOnMain(() -> {
+                    if (exportButton != null) {
+                        exportButton.setEnabled(true);
+                    }
+                    startActivity(shareIntent);
+                });
+            } catch (Exception e) {
+                errorLogger.logError(TAG, "Error exporting logs", e);
+                taskScope.runOnMain(() -> {
+                    if (exportButton != null) {
+                        exportButton.setEnabled(true);
+                    }
+                    Toast.makeText(this, "Failed to export logs", Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
     }
     
     private void copyIndividualLog(JSONObject log, int entryNumber) {
         try {
             StringBuilder sb = new StringBuilder();
             sb.append("=== Error Log Entry #").append(entryNumber).append(" ===\n");
-            sb.append("Timestamp: ").append(log.optString("timestamp", "Unknown")).append("\n");
+            sb.append("Timestamp: ").append(ErrorLogger.formatTimestamp(log)).append("\n");
             sb.append("Level: ").append(log.optString("level", "Unknown")).append("\n");
             sb.append("Tag: ").append(log.optString("tag", "Unknown")).append("\n");
             sb.append("Message: ").append(log.optString("message", "No message")).append("\n");
@@ -325,20 +392,33 @@ public class ErrorLogActivity extends AppCompatActivity {
         }
     }
     
+    private void showExportSnapshotDialog() {
+        try {
+            AlertDialog.Builder builder = new AlertDialog.Builder(this);
+            builder.setTitle("Export Detection Snapshot")
+                   .setMessage("Records installed apps, recent usage, running processes and services so "
+                       + "running-app detection can be replayed off the device. The file lists every installed app.")
+                   .setPositiveButton("Export", (dialog, which) -> exportLogs(true))
+                   .setNegativeButton("Cancel", null)
+                   .show();
+        } catch (Exception e) {
+            errorLogger.logError(TAG, "Error showing export snapshot dialog", e);
+        }
+    }
+    
     private void showClearLogsDialog() {
         try {
             AlertDialog.Builder builder = new AlertDialog.Builder(this);
             builder.setTitle("Clear All Logs")
                    .setMessage("Are you sure you want to clear all error logs? This action cannot be undone.")
                    .setPositiveButton("Clear All", (dialog, which) -> {
-                       try {
+                       taskScope.launch(AppExecutors.io(), () -> {
                            errorLogger.clearLogs();
-                           loadErrorLogs(); // Refresh the display
-                           Toast.makeText(this, "All logs cleared", Toast.LENGTH_SHORT).show();
-                       } catch (Exception e) {
-                           errorLogger.logError(TAG, "Error clearing logs", e);
-                           Toast.makeText(this, "Failed to clear logs", Toast.LENGTH_SHORT).show();
-                       }
+                           taskScope.runOnMain(() -> {
+                               loadErrorLogs(); // Refresh the display
+                               Toast.makeText(this, "All logs cleared", Toast.LENGTH_SHORT).show();
+                           });
+                       });
                    })
                    .setNegativeButton("Cancel", null)
                    .show();
@@ -3,33 +3,88 @@ package com.nomor.memoryclear;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Build;
+import android.text.format.DateFormat;
 import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.text.SimpleDateFormat;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ErrorLogger {
     private static final String TAG = "ErrorLogger";
     private static final String PREFS_NAME = "ErrorLoggerPrefs";
-    private static final String KEY_ERROR_LOGS = "error_logs";
-    private static final int MAX_LOGS = 100; // Keep last 100 errors
+    private static final String KEY_ERROR_LOGS = "error_logs"; // Legacy storage, migrated to the log file
+    private static final String LOG_FILE_NAME = "error_logs.ndjson";
+    private static final String ROLLED_LOG_FILE_NAME = "error_logs.1.ndjson";
+    private static final int MAX_LOGS = 100; // Most recent entries shown in the log viewer
+    private static final int MAX_RECORDS_PER_FILE = 2000; // Roll the file over at this size, keeping one rolled file
+    
+    // Records store raw epoch millis; this pattern is only applied when displaying or exporting
+    private static final String TIMESTAMP_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    
+    // A crashing thread waits at most this long for queued records to reach the file
+    private static final long CRASH_FLUSH_TIMEOUT_MS = 2000;
+    private static final String SNAPSHOT_FILE_NAME = "error_logs.snapshot";
     
     private static ErrorLogger sInstance;
     private SharedPreferences mPrefs;
-    private SimpleDateFormat mDateFormat;
+    private final File mCacheDir;
+    private final AtomicLong mSequence = new AtomicLong();
+    
+    // Records are appended one JSON object per line, so writes never rewrite old entries
+    private final LogFileStore mStore;
+    
+    // All file access happens on this thread, in submission order, so logging never blocks
+    // the caller on disk and the files need no locking
+    private final ExecutorService mWriter;
+    private volatile Thread mWriterThread;
     
     private ErrorLogger(Context context) {
         mPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        mDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+        mCacheDir = context.getCacheDir();
+        mStore = new LogFileStore(new File(context.getFilesDir(), LOG_FILE_NAME),
+                new File(context.getFilesDir(), ROLLED_LOG_FILE_NAME), MAX_RECORDS_PER_FILE);
+        mWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                mWriterThread = new Thread(runnable, "ErrorLogger");
+                return mWriterThread;
+            }
+        });
+        
+        // Counting the stored lines reads both files, so it stays off the start-up path too
+        mWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                migrateLegacyLogs();
+                loadFileState();
+            }
+        });
     }
     
     public static synchronized ErrorLogger getInstance(Context context) {
@@ -44,11 +99,7 @@ public class ErrorLogger {
      */
     public void logError(String tag, String message, Throwable throwable) {
         try {
-            JSONObject errorObj = new JSONObject();
-            errorObj.put("timestamp", mDateFormat.format(new Date()));
-            errorObj.put("tag", tag);
-            errorObj.put("message", message);
-            errorObj.put("level", "ERROR");
+            JSONObject errorObj = createRecord("ERROR", tag, message);
             
             // Add device information
             JSONObject deviceInfo = getDeviceInfo();
@@ -83,11 +134,7 @@ public class ErrorLogger {
      */
     public void logWarning(String tag, String message) {
         try {
-            JSONObject errorObj = new JSONObject();
-            errorObj.put("timestamp", mDateFormat.format(new Date()));
-            errorObj.put("tag", tag);
-            errorObj.put("message", message);
-            errorObj.put("level", "WARNING");
+            JSONObject errorObj = createRecord("WARNING", tag, message);
             
             JSONObject deviceInfo = getDeviceInfo();
             errorObj.put("device", deviceInfo);
@@ -105,11 +152,7 @@ public class ErrorLogger {
      */
     public void logInfo(String tag, String message) {
         try {
-            JSONObject errorObj = new JSONObject();
-            errorObj.put("timestamp", mDateFormat.format(new Date()));
-            errorObj.put("tag", tag);
-            errorObj.put("message", message);
-            errorObj.put("level", "INFO");
+            JSONObject errorObj = createRecord("INFO", tag, message);
             
             saveErrorLog(errorObj);
             Log.i(tag, message);
@@ -120,27 +163,54 @@ public class ErrorLogger {
     }
     
     /**
-     * Save error log to SharedPreferences
+     * Wait until every record queued so far is on disk. Only for the crash handler, where the
+     * process is about to die; everyone else just queues and moves on.
      */
-    private void saveErrorLog(JSONObject errorObj) {
+    public void flush() {
+        if (Thread.currentThread() == mWriterThread) {
+            return;
+        }
         try {
-            String existingLogs = mPrefs.getString(KEY_ERROR_LOGS, "[]");
-            JSONArray logsArray = new JSONArray(existingLogs);
-            
-            // Add new log
-            logsArray.put(errorObj);
-            
-            // Keep only the last MAX_LOGS entries
-            if (logsArray.length() > MAX_LOGS) {
-                JSONArray trimmedArray = new JSONArray();
-                int startIndex = logsArray.length() - MAX_LOGS;
-                for (int i = startIndex; i < logsArray.length(); i++) {
-                    trimmedArray.put(logsArray.get(i));
+            mWriter.submit(new Runnable() {
+                @Override
+                public void run() {
                 }
-                logsArray = trimmedArray;
+            }).get(CRASH_FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Log.w(TAG, "Log records not flushed", e);
+        }
+    }
+    
+    /**
+     * Create the common fields of a log record. The time is kept as raw epoch millis
+     * and only formatted when the record is displayed or exported.
+     */
+    private JSONObject createRecord(String level, String tag, String message) throws JSONException {
+        JSONObject errorObj = new JSONObject();
+        errorObj.put("time", System.currentTimeMillis());
+        errorObj.put("tag", tag);
+        errorObj.put("message", message);
+        errorObj.put("level", level);
+        return errorObj;
+    }
+    
+    /**
+     * Queue a record for appending to the log file. Sequence numbers are assigned on the
+     * writer thread, so they match the order records are stored in.
+     */
+    private void saveErrorLog(final JSONObject errorObj) {
+        mWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeRecord(errorObj);
             }
-            
-            mPrefs.edit().putString(KEY_ERROR_LOGS, logsArray.toString()).apply();
+        });
+    }
+    
+    private void writeRecord(JSONObject errorObj) {
+        try {
+            errorObj.put("seq", mSequence.incrementAndGet());
+            mStore.append(errorObj.toString());
             
         } catch (Exception e) {
             Log.e(TAG, "Failed to save error log", e);
@@ -148,16 +218,51 @@ public class ErrorLogger {
     }
     
     /**
-     * Get all error logs
+     * Run a file operation on the writer thread after every record queued before it.
+     * Blocks until it is done, so never call it on the main thread.
+     */
+    private <T> T callOnWriter(Callable<T> task) throws Exception {
+        if (Thread.currentThread() == mWriterThread) {
+            return task.call();
+        }
+        try {
+            return mWriter.submit(task).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+    
+    /**
+     * Get the most recent error logs, newest first. Waits for the writer; call off the main thread.
      */
     public List<JSONObject> getAllLogs() {
+        try {
+            return callOnWriter(new Callable<List<JSONObject>>() {
+                @Override
+                public List<JSONObject> call() {
+                    return readAllLogs();
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to retrieve logs", e);
+            return Collections.emptyList();
+        }
+    }
+    
+    private List<JSONObject> readAllLogs() {
         List<JSONObject> logs = new ArrayList<>();
         try {
-            String existingLogs = mPrefs.getString(KEY_ERROR_LOGS, "[]");
-            JSONArray logsArray = new JSONArray(existingLogs);
+            // Keep only the last MAX_LOGS lines while reading, oldest file first
+            ArrayDeque<String> recentLines = mStore.readRecentLines(MAX_LOGS);
             
-            for (int i = logsArray.length() - 1; i >= 0; i--) { // Most recent first
-                logs.add(logsArray.getJSONObject(i));
+            Iterator<String> iterator = recentLines.descendingIterator(); // Most recent first
+            while (iterator.hasNext()) {
+                try {
+                    logs.add(new JSONObject(iterator.next()));
+                } catch (JSONException e) {
+                    Log.w(TAG, "Skipping corrupt log line");
+                }
             }
             
         } catch (Exception e) {
@@ -167,12 +272,52 @@ public class ErrorLogger {
     }
     
     /**
-     * Get formatted logs as string for copying
+     * Stream every stored record, oldest first, as one JSON object per line.
+     *
+     * The writer thread only copies the log files into an uncompressed snapshot, which is fast;
+     * the snapshot is then streamed to out on the calling thread, so a slow (e.g. gzip) writer
+     * never holds up logging. Only a single line is held in memory at a time.
+     */
+    public void writeRecordsTo(Writer out) throws IOException {
+        final File snapshot = new File(mCacheDir, SNAPSHOT_FILE_NAME);
+        try {
+            callOnWriter(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    try (Writer snapshotWriter = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(snapshot), StandardCharsets.UTF_8))) {
+                        mStore.copyTo(snapshotWriter);
+                    }
+                    return null;
+                }
+            });
+            
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(snapshot), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read log records", e);
+        } finally {
+            if (snapshot.exists() && !snapshot.delete()) {
+                Log.w(TAG, "Failed to delete log snapshot");
+            }
+        }
+    }
+    
+    /**
+     * Get formatted logs as string for copying. Waits for the writer; call off the main thread.
      */
     public String getFormattedLogs() {
         StringBuilder sb = new StringBuilder();
         sb.append("=== NO MORE APPS PRO - ERROR LOGS ===\n");
-        sb.append("Generated: ").append(mDateFormat.format(new Date())).append("\n\n");
+        sb.append("Generated: ").append(formatTime(System.currentTimeMillis())).append("\n\n");
         
         List<JSONObject> logs = getAllLogs();
         
@@ -183,7 +328,7 @@ public class ErrorLogger {
                 try {
                     JSONObject log = logs.get(i);
                     sb.append("--- Log Entry ").append(i + 1).append(" ---\n");
-                    sb.append("Timestamp: ").append(log.optString("timestamp", "Unknown")).append("\n");
+                    sb.append("Timestamp: ").append(formatTimestamp(log)).append("\n");
                     sb.append("Level: ").append(log.optString("level", "Unknown")).append("\n");
                     sb.append("Tag: ").append(log.optString("tag", "Unknown")).append("\n");
                     sb.append("Message: ").append(log.optString("message", "No message")).append("\n");
@@ -216,17 +361,79 @@ public class ErrorLogger {
     }
     
     /**
-     * Clear all logs
+     * Format the time of a log record for display. Older records stored a preformatted
+     * "timestamp" string, which is returned as-is.
      */
-    public void clearLogs() {
+    public static String formatTimestamp(JSONObject log) {
+        if (log.has("time")) {
+            return formatTime(log.optLong("time"));
+        }
+        return log.optString("timestamp", "Unknown");
+    }
+    
+    private static String formatTime(long timeMillis) {
+        // DateFormat.format keeps no shared state, so it is safe from any thread
+        return DateFormat.format(TIMESTAMP_PATTERN, timeMillis).toString();
+    }
+    
+    /**
+     * Count stored records and continue the sequence numbering from the newest one
+     */
+    private void loadFileState() {
+        try {
+            String lastLine = mStore.load();
+            if (lastLine != null) {
+                mSequence.set(new JSONObject(lastLine).optLong("seq", 0));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read log file state", e);
+        }
+    }
+    
+    /**
+     * Move logs stored by older versions in SharedPreferences into the log file
+     */
+    private void migrateLegacyLogs() {
+        String legacyLogs = mPrefs.getString(KEY_ERROR_LOGS, null);
+        if (legacyLogs == null) {
+            return;
+        }
+        
+        try {
+            JSONArray logsArray = new JSONArray(legacyLogs);
+            List<String> lines = new ArrayList<>(logsArray.length());
+            for (int i = 0; i < logsArray.length(); i++) {
+                lines.add(logsArray.getJSONObject(i).toString());
+            }
+            mStore.appendAll(lines);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to migrate legacy logs", e);
+        }
         mPrefs.edit().remove(KEY_ERROR_LOGS).apply();
-        Log.i(TAG, "All error logs cleared");
+    }
+    
+    /**
+     * Clear all logs. Waits for the writer; call off the main thread.
+     */
+    public void clearLogs() {
+        try {
+            callOnWriter(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    mStore.clear();
+                    return null;
+                }
+            });
+            Log.i(TAG, "All error logs cleared");
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to clear logs", e);
+        }
     }
     
     /**
      * Get device information
      */
-    private JSONObject getDeviceInfo() {
+    JSONObject getDeviceInfo() {
         JSONObject deviceInfo = new JSONObject();
         try {
             deviceInfo.put("manufacturer", Build.MANUFACTURER);
@@ -262,14 +469,19 @@ public class ErrorLogger {
     }
     
     /**
-     * Get count of error logs
+     * Get count of all stored logs, including those beyond the viewer limit.
+     * Waits for the writer; call off the main thread.
      */
     public int getLogCount() {
         try {
-            String existingLogs = mPrefs.getString(KEY_ERROR_LOGS, "[]");
-            JSONArray logsArray = new JSONArray(existingLogs);
-            return logsArray.length();
+            return callOnWriter(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return mStore.getRecordCount();
+                }
+            });
         } catch (Exception e) {
+            Log.e(TAG, "Failed to count logs", e);
             return 0;
         }
     }
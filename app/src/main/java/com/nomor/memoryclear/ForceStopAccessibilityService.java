@@ -2,6 +2,8 @@ package com.nomor.memoryclear;
 
 import android.accessibilityservice.AccessibilityService;
 import android.accessibilityservice.AccessibilityServiceInfo;
+import android.app.ActivityManager;
+import android.content.Context;
 import android.content.Intent;
 import android.os.Handler;
 import android.os.Looper;
@@ -20,6 +22,11 @@ public class ForceStopAccessibilityService extends AccessibilityService {
     private int currentAppIndex = 0;
     private boolean isProcessing = false;
     private boolean isPremiumSpeedActive = false;
+    private String currentJobId;
+    private int stoppedCount = 0;
+    private long batchStartTime;
+    private long availMemAtStart;
+    private long reclaimedMb;
     
     // Premium speed settings - 3-4x faster
     private static final int NORMAL_SETTINGS_DELAY = 1500;
@@ -59,9 +66,12 @@ public class ForceStopAccessibilityService extends AccessibilityService {
             if ("force_stop_apps".equals(action)) {
                 String[] packages = intent.getStringArrayExtra("packages");
                 boolean premiumSpeed = intent.getBooleanExtra("premium_speed", false);
+                String jobId = intent.getStringExtra(ForceStopJobTracker.EXTRA_JOB_ID);
                 
                 if (packages != null) {
-                    startForceStoppingApps(Arrays.asList(packages), premiumSpeed);
+                    startForceStoppingApps(Arrays.asList(packages), premiumSpeed, jobId);
+                } else {
+                    rejectJob(jobId);
                 }
             }
         }
@@ -69,9 +79,10 @@ public class ForceStopAccessibilityService extends AccessibilityService {
         return START_NOT_STICKY;
     }
     
-    private void startForceStoppingApps(List<String> packages, boolean premiumSpeed) {
+    private void startForceStoppingApps(List<String> packages, boolean premiumSpeed, String jobId) {
         if (isProcessing) {
             android.util.Log.w(TAG, "Already processing apps, ignoring new request");
+            rejectJob(jobId);
             return;
         }
         
@@ -79,6 +90,12 @@ public class ForceStopAccessibilityService extends AccessibilityService {
         currentAppIndex = 0;
         isProcessing = true;
         isPremiumSpeedActive = premiumSpeed;
+        currentJobId = jobId;
+        stoppedCount = 0;
+        batchStartTime = android.os.SystemClock.elapsedRealtime();
+        availMemAtStart = getAvailableMemory();
+        reclaimedMb = 0;
+        PerformanceMetrics.recordForceStopBatch(appsToStop.size());
         
         android.util.Log.d(TAG, "Starting to force stop " + appsToStop.size() + " apps" + 
             (premiumSpeed ? " with PREMIUM SPEED (3-4x faster)" : " at normal speed"));
@@ -91,6 +108,9 @@ public class ForceStopAccessibilityService extends AccessibilityService {
     }
     
     private void processNextApp() {
+        if (!isProcessing) {
+            return;
+        }
         if (currentAppIndex >= appsToStop.size()) {
             completeProcessing();
             return;
@@ -100,6 +120,9 @@ public class ForceStopAccessibilityService extends AccessibilityService {
         android.util.Log.d(TAG, "Processing app: " + packageName + " (" + (currentAppIndex + 1) + "/" + appsToStop.size() + ")" +
             (isPremiumSpeedActive ? " [PREMIUM SPEED]" : ""));
         
+        updateReclaimed();
+        publishProgress(ForceStopProgress.STEP_OPENING_SETTINGS);
+        
         // Open app info settings for the package
         openAppInfoSettings(packageName);
         
@@ -109,6 +132,7 @@ public class ForceStopAccessibilityService extends AccessibilityService {
         
         // Wait for settings to open and then try to click force stop
         mainHandler.postDelayed(() -> {
+            publishProgress(ForceStopProgress.STEP_FORCE_STOP);
             clickForceStopButton();
             
             // Move to next app after delay
@@ -149,6 +173,7 @@ public class ForceStopAccessibilityService extends AccessibilityService {
                 for (AccessibilityNodeInfo node : forceStopNodes) {
                     if (node.isClickable() && node.isEnabled()) {
                         node.performAction(AccessibilityNodeInfo.ACTION_CLICK);
+                        PerformanceMetrics.recordForceStopClick();
                         android.util.Log.d(TAG, "Clicked Force Stop button" + 
                             (isPremiumSpeedActive ? " [PREMIUM SPEED]" : ""));
                         
@@ -167,6 +192,7 @@ public class ForceStopAccessibilityService extends AccessibilityService {
     }
     
     private void clickConfirmationButton() {
+        publishProgress(ForceStopProgress.STEP_CONFIRMING);
         try {
             AccessibilityNodeInfo rootNode = getRootInActiveWindow();
             if (rootNode != null) {
@@ -187,7 +213,10 @@ public class ForceStopAccessibilityService extends AccessibilityService {
                 
                 for (AccessibilityNodeInfo node : confirmNodes) {
                     if (node.isClickable() && node.isEnabled()) {
-                        node.performAction(AccessibilityNodeInfo.ACTION_CLICK);
+                        // Only a confirmed dialog stops the app; clicking Force stop alone does not
+                        if (node.performAction(AccessibilityNodeInfo.ACTION_CLICK) && isProcessing) {
+                            stoppedCount++;
+                        }
                         android.util.Log.d(TAG, "Clicked confirmation button" + 
                             (isPremiumSpeedActive ? " [PREMIUM SPEED]" : ""));
                         break;
@@ -203,13 +232,14 @@ public class ForceStopAccessibilityService extends AccessibilityService {
     
     private void completeProcessing() {
         android.util.Log.d(TAG, "Force stopping process completed");
+        ForceStopJobTracker.JobResult result = finishJob();
         
         // Send broadcast to notify that force stopping is completed
         try {
             android.content.Intent completionIntent = new android.content.Intent("com.nomor.memoryclear.FORCE_STOP_COMPLETED");
-            if (appsToStop != null) {
-                completionIntent.putExtra("apps_stopped", appsToStop.size());
-            }
+            completionIntent.putExtra("apps_stopped", result.stopped);
+            completionIntent.putExtra("apps_attempted", result.attempted);
+            completionIntent.putExtra("duration_ms", result.durationMs);
             sendBroadcast(completionIntent);
             android.util.Log.d(TAG, "Force stop completion broadcast sent");
         } catch (Exception e) {
@@ -230,6 +260,63 @@ public class ForceStopAccessibilityService extends AccessibilityService {
         startActivity(homeIntent);
     }
     
+    /**
+     * Report the batch outcome to whoever is awaiting the job and clear the job state
+     */
+    private ForceStopJobTracker.JobResult finishJob() {
+        int attempted = appsToStop != null ? Math.min(currentAppIndex, appsToStop.size()) : 0;
+        ForceStopJobTracker.JobResult result = new ForceStopJobTracker.JobResult(attempted, stoppedCount,
+            android.os.SystemClock.elapsedRealtime() - batchStartTime);
+        ForceStopJobTracker.complete(currentJobId, result);
+        
+        updateReclaimed();
+        publishProgress(ForceStopProgress.STEP_FINISHED);
+        currentJobId = null;
+        return result;
+    }
+    
+    /**
+     * End a job that never started, so whoever awaits or watches it stops waiting
+     */
+    private void rejectJob(String jobId) {
+        ForceStopJobTracker.complete(jobId, new ForceStopJobTracker.JobResult(0, 0, 0));
+        ForceStopProgress.publish(new ForceStopProgress.Update(jobId, null, ForceStopProgress.STEP_FINISHED,
+            0, 0, 0, 0, 0));
+    }
+    
+    private void publishProgress(int step) {
+        if (appsToStop == null) {
+            return;
+        }
+        int total = appsToStop.size();
+        int index = Math.min(currentAppIndex, total);
+        String packageName = index < total ? appsToStop.get(index) : null;
+        ForceStopProgress.publish(new ForceStopProgress.Update(currentJobId, packageName, step, index, total,
+            stoppedCount, android.os.SystemClock.elapsedRealtime() - batchStartTime, reclaimedMb));
+    }
+    
+    /**
+     * Running total of memory freed since the batch started, sampled once per app
+     */
+    private void updateReclaimed() {
+        reclaimedMb = Math.max(0, getAvailableMemory() - availMemAtStart) / (1024 * 1024);
+    }
+    
+    private long getAvailableMemory() {
+        try {
+            ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+            if (activityManager == null) {
+                return 0;
+            }
+            ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+            activityManager.getMemoryInfo(memoryInfo);
+            return memoryInfo.availMem;
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error reading available memory", e);
+            return 0;
+        }
+    }
+    
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
         // Handle accessibility events if needed
@@ -241,13 +328,31 @@ public class ForceStopAccessibilityService extends AccessibilityService {
     @Override
     public void onInterrupt() {
         android.util.Log.d(TAG, "ForceStopAccessibilityService interrupted");
-        isProcessing = false;
+        abortBatch();
     }
     
     @Override
     public void onDestroy() {
         super.onDestroy();
         android.util.Log.d(TAG, "ForceStopAccessibilityService destroyed");
+        abortBatch();
+    }
+    
+    /**
+     * Report a batch in progress as finished and drop its queued steps, so nothing keeps
+     * opening Settings or completes the same job a second time
+     */
+    private void abortBatch() {
+        if (isProcessing) {
+            finishJob();
+        }
+        if (mainHandler != null) {
+            mainHandler.removeCallbacksAndMessages(null);
+        }
         isProcessing = false;
+        currentAppIndex = 0;
+        if (appsToStop != null) {
+            appsToStop.clear();
+        }
     }
 }
\ No newline at end of file
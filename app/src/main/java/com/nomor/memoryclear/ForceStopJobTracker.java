@@ -0,0 +1,77 @@
+package com.nomor.memoryclear;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the outcome of a force-stop batch from ForceStopAccessibilityService back to whoever
+ * started it. Both run in this process, so a latch per job id is all that is needed.
+ */
+public class ForceStopJobTracker {
+    
+    public static final String EXTRA_JOB_ID = "job_id";
+    
+    /**
+     * Outcome of one force-stop batch
+     */
+    public static class JobResult {
+        public final int attempted;
+        public final int stopped;
+        public final long durationMs;
+        
+        public JobResult(int attempted, int stopped, long durationMs) {
+            this.attempted = attempted;
+            this.stopped = stopped;
+            this.durationMs = durationMs;
+        }
+    }
+    
+    private static class PendingJob {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile JobResult result;
+    }
+    
+    private static final Map<String, PendingJob> sJobs = new ConcurrentHashMap<>();
+    
+    /**
+     * Register a new job; pass the id to the service with EXTRA_JOB_ID
+     */
+    public static String newJob() {
+        String jobId = UUID.randomUUID().toString();
+        sJobs.put(jobId, new PendingJob());
+        return jobId;
+    }
+    
+    /**
+     * Called by the service when the batch ends, successfully or not. Unknown ids are ignored.
+     */
+    public static void complete(String jobId, JobResult result) {
+        if (jobId == null) {
+            return;
+        }
+        PendingJob job = sJobs.get(jobId);
+        if (job != null) {
+            job.result = result;
+            job.latch.countDown();
+        }
+    }
+    
+    /**
+     * Block until the job completes or the timeout passes. Returns null on timeout.
+     */
+    public static JobResult await(String jobId, long timeoutMs) throws InterruptedException {
+        PendingJob job = sJobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        try {
+            job.latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+            return job.result;
+        } finally {
+            sJobs.remove(jobId);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.nomor.memoryclear;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Live progress of a force-stop batch, from ForceStopAccessibilityService to whoever is
+ * watching. Both run in this process, so this is a plain listener list on the main thread.
+ *
+ * The service may publish on every step; listeners get at most one update per
+ * MIN_DISPATCH_INTERVAL_MS, always the latest one, and the final update without delay.
+ */
+public class ForceStopProgress {
+    
+    private static final String TAG = "ForceStopProgress";
+    static final long MIN_DISPATCH_INTERVAL_MS = 250;
+    
+    public static final int STEP_OPENING_SETTINGS = 0;
+    public static final int STEP_FORCE_STOP = 1;
+    public static final int STEP_CONFIRMING = 2;
+    public static final int STEP_FINISHED = 3;
+    
+    /**
+     * One progress update; immutable so it can be handed to any number of listeners
+     */
+    public static class Update {
+        public final String jobId;
+        public final String packageName;
+        public final int step;
+        public final int index; // apps done before packageName
+        public final int total;
+        public final int stopped;
+        public final long elapsedMs;
+        public final long reclaimedMb;
+        
+        public Update(String jobId, String packageName, int step, int index, int total, int stopped,
+                      long elapsedMs, long reclaimedMb) {
+            this.jobId = jobId;
+            this.packageName = packageName;
+            this.step = step;
+            this.index = index;
+            this.total = total;
+            this.stopped = stopped;
+            this.elapsedMs = elapsedMs;
+            this.reclaimedMb = reclaimedMb;
+        }
+        
+        public boolean isFinished() {
+            return step == STEP_FINISHED;
+        }
+        
+        /**
+         * Completed apps per minute so far, or 0 before the first app completes
+         */
+        public double getAppsPerMinute() {
+            if (index == 0 || elapsedMs <= 0) {
+                return 0;
+            }
+            return index * 60000.0 / elapsedMs;
+        }
+        
+        /**
+         * Estimated time left at the current rate, or -1 before the first app completes
+         */
+        public long getEtaMs() {
+            if (isFinished()) {
+                return 0;
+            }
+            if (index == 0) {
+                return -1;
+            }
+            return (total - index) * elapsedMs / index;
+        }
+        
+        public String getStepLabel() {
+            switch (step) {
+                case STEP_OPENING_SETTINGS:
+                    return "Opening app info";
+                case STEP_FORCE_STOP:
+                    return "Pressing Force stop";
+                case STEP_CONFIRMING:
+                    return "Confirming";
+                default:
+                    return "Finished";
+            }
+        }
+    }
+    
+    /**
+     * Called on the main thread
+     */
+    public interface Listener {
+        void onProgress(Update update);
+    }
+    
+    private static final CopyOnWriteArrayList<Listener> sListeners = new CopyOnWriteArrayList<>();
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    
+    // Main thread only
+    private static Update sPending;
+    private static long sLastDispatch;
+    private static boolean sDispatchScheduled;
+    
+    private static final Runnable sDispatch = new Runnable() {
+        @Override
+        public void run() {
+            sDispatchScheduled = false;
+            dispatchPending();
+        }
+    };
+    
+    public static void addListener(Listener listener) {
+        sListeners.addIfAbsent(listener);
+    }
+    
+    public static void removeListener(Listener listener) {
+        sListeners.remove(listener);
+    }
+    
+    /**
+     * Publish from the main thread. Updates arriving faster than the dispatch rate replace
+     * each other; only the newest is delivered.
+     */
+    public static void publish(Update update) {
+        sPending = update;
+        if (update.isFinished()) {
+            sMainHandler.removeCallbacks(sDispatch);
+            sDispatchScheduled = false;
+            dispatchPending();
+            return;
+        }
+        if (sDispatchScheduled) {
+            return;
+        }
+        
+        long wait = sLastDispatch + MIN_DISPATCH_INTERVAL_MS - SystemClock.elapsedRealtime();
+        if (wait <= 0) {
+            dispatchPending();
+        } else {
+            sDispatchScheduled = true;
+            sMainHandler.postDelayed(sDispatch, wait);
+        }
+    }
+    
+    private static void dispatchPending() {
+        Update update = sPending;
+        sPending = null;
+        if (update == null) {
+            return;
+        }
+        sLastDispatch = SystemClock.elapsedRealtime();
+        for (Listener listener : sListeners) {
+            try {
+                listener.onProgress(update);
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Error in progress listener", e);
+            }
+        }
+    }
+}
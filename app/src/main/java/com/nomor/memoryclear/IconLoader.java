@@ -0,0 +1,176 @@
+package com.nomor.memoryclear;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads app icons for list rows off the main thread. Icons are rendered once into
+ * row-sized bitmaps on a small low-priority pool and kept in a byte-bounded LRU cache.
+ * Rows show a placeholder until their icon arrives, and a row that is recycled or rebound
+ * cancels its pending load, so scrolling never queues work for rows that are gone.
+ */
+public class IconLoader {
+    
+    private static final String TAG = "IconLoader";
+    private static final int DECODE_THREADS = 2;
+    private static final int ICON_SIZE_DP = 48;
+    
+    private static IconLoader sInstance;
+    
+    private final PackageManager packageManager;
+    private final Drawable placeholder;
+    private final int iconSizePx;
+    private final LruCache<String, BitmapDrawable> cache;
+    private final ExecutorService decodePool;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Context appContext;
+    
+    /**
+     * An in-flight load, stored as the ImageView's tag so a later load or cancel can find it
+     */
+    private static class Request {
+        final String packageName;
+        Future<?> future;
+        
+        Request(String packageName) {
+            this.packageName = packageName;
+        }
+    }
+    
+    public static synchronized IconLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new IconLoader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+    
+    private IconLoader(Context context) {
+        appContext = context;
+        packageManager = context.getPackageManager();
+        placeholder = ContextCompat.getDrawable(context, android.R.drawable.sym_def_app_icon);
+        iconSizePx = Math.round(ICON_SIZE_DP * context.getResources().getDisplayMetrics().density);
+        
+        // 1/16 of the app's heap class: a few hundred 48dp icons on typical devices
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassMb = activityManager != null ? activityManager.getMemoryClass() : 64;
+        cache = new LruCache<String, BitmapDrawable>(memoryClassMb * 1024 * 1024 / 16) {
+            @Override
+            protected int sizeOf(String key, BitmapDrawable value) {
+                return value.getBitmap().getByteCount();
+            }
+        };
+        
+        final AtomicInteger threadCount = new AtomicInteger();
+        decodePool = Executors.newFixedThreadPool(DECODE_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "IconLoader-" + threadCount.incrementAndGet());
+                return thread;
+            }
+        });
+    }
+    
+    /**
+     * Show the icon for a package in the view, from cache immediately or after an async load.
+     * Must be called on the main thread.
+     */
+    public void load(final String packageName, final ImageView target) {
+        Request previous = (Request) target.getTag(R.id.icon_loader_request);
+        if (previous != null) {
+            if (previous.packageName.equals(packageName)) {
+                return;
+            }
+            cancel(target);
+        }
+        
+        BitmapDrawable cached = cache.get(packageName);
+        if (cached != null) {
+            target.setImageDrawable(cached);
+            return;
+        }
+        
+        target.setImageDrawable(placeholder);
+        final Request request = new Request(packageName);
+        target.setTag(R.id.icon_loader_request, request);
+        request.future = decodePool.submit(new Runnable() {
+            @Override
+            public void run() {
+                final BitmapDrawable icon = decode(packageName);
+                if (icon == null || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Only deliver if the view still wants this request
+                        if (target.getTag(R.id.icon_loader_request) == request) {
+                            target.setTag(R.id.icon_loader_request, null);
+                            target.setImageDrawable(icon);
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Cancel the view's pending load, if any. Must be called on the main thread.
+     */
+    public void cancel(ImageView target) {
+        Request request = (Request) target.getTag(R.id.icon_loader_request);
+        if (request != null) {
+            if (request.future != null) {
+                request.future.cancel(true);
+            }
+            target.setTag(R.id.icon_loader_request, null);
+        }
+    }
+    
+    private BitmapDrawable decode(String packageName) {
+        BitmapDrawable cached = cache.get(packageName);
+        if (cached != null) {
+            return cached;
+        }
+        
+        try {
+            Drawable drawable = packageManager.getApplicationIcon(packageName);
+            Bitmap bitmap = Bitmap.createBitmap(iconSizePx, iconSizePx, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            drawable.setBounds(0, 0, iconSizePx, iconSizePx);
+            drawable.draw(canvas);
+            
+            BitmapDrawable icon = new BitmapDrawable(appContext.getResources(), bitmap);
+            cache.put(packageName, icon);
+            return icon;
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error loading icon for " + packageName, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.nomor.memoryclear;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.util.Log;
+import androidx.core.content.FileProvider;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports stored logs as gzipped NDJSON (one JSON object per line) into the cache directory
+ * and shares the file through the app's FileProvider.
+ *
+ * The first line is a header with device information, the second holds the detection and
+ * force stop metrics, and every following line is a log record, oldest first. Records are
+ * streamed straight from the log file, so memory use does not grow with the number of logs.
+ *
+ * A detection snapshot (see DetectionSnapshot) can be exported the same way for replaying
+ * running-app detection off the device.
+ */
+public class LogExporter {
+    
+    private static final String TAG = "LogExporter";
+    private static final String EXPORT_DIR = "exports"; // The only directory res/xml/export_paths.xml shares
+    private static final String FILE_PROVIDER_SUFFIX = ".fileprovider";
+    private static final String MIME_TYPE = "application/gzip";
+    
+    // Usage history recorded into a detection snapshot; covers every detection window
+    private static final long SNAPSHOT_USAGE_WINDOW_MS = 24 * 60 * 60 * 1000;
+    
+    private final Context context;
+    private final ErrorLogger errorLogger;
+    
+    public LogExporter(Context context) {
+        this.context = context.getApplicationContext();
+        this.errorLogger = ErrorLogger.getInstance(context);
+    }
+    
+    /**
+     * Write the export file. Does file I/O, so call it off the main thread.
+     */
+    public File export() throws IOException, JSONException {
+        File exportDir = prepareExportDir();
+        
+        File exportFile = new File(exportDir, "nomoreapps_logs_" + System.currentTimeMillis() + ".ndjson.gz");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(exportFile)), StandardCharsets.UTF_8))) {
+            writeLine(writer, createHeader());
+            writeLine(writer, PerformanceMetrics.toJson());
+            errorLogger.writeRecordsTo(writer);
+        }
+        
+        Log.i(TAG, "Logs exported to " + exportFile.getName() + " (" + exportFile.length() + " bytes)");
+        return exportFile;
+    }
+    
+    /**
+     * Write a gzipped detection snapshot of this device. Does file I/O, so call it off the main thread.
+     */
+    public File exportDetectionSnapshot() throws IOException {
+        File exportDir = prepareExportDir();
+        
+        File exportFile = new File(exportDir, "nomoreapps_detection_" + System.currentTimeMillis() + ".txt.gz");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(exportFile)), StandardCharsets.UTF_8))) {
+            DetectionSnapshot.write(new AndroidDetectionSource(context), SNAPSHOT_USAGE_WINDOW_MS, writer);
+        }
+        
+        Log.i(TAG, "Detection snapshot exported to " + exportFile.getName() + " (" + exportFile.length() + " bytes)");
+        return exportFile;
+    }
+    
+    /**
+     * Build a chooser intent that shares the export file with read access granted
+     */
+    public Intent createShareIntent(File exportFile) {
+        Uri uri = FileProvider.getUriForFile(context, context.getPackageName() + FILE_PROVIDER_SUFFIX, exportFile);
+        
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType(MIME_TYPE);
+        intent.putExtra(Intent.EXTRA_STREAM, uri);
+        intent.putExtra(Intent.EXTRA_SUBJECT, "No More Apps PRO logs");
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        return Intent.createChooser(intent, "Share logs");
+    }
+    
+    private JSONObject createHeader() throws JSONException {
+        JSONObject header = new JSONObject();
+        header.put("type", "header");
+        header.put("format", "ndjson");
+        header.put("exportedAt", System.currentTimeMillis());
+        header.put("recordCount", errorLogger.getLogCount());
+        header.put("device", errorLogger.getDeviceInfo());
+        return header;
+    }
+    
+    private void writeLine(Writer writer, JSONObject object) throws IOException {
+        writer.write(object.toString());
+        writer.write('\n');
+    }
+    
+    private File prepareExportDir() throws IOException {
+        File exportDir = new File(context.getCacheDir(), EXPORT_DIR);
+        if (!exportDir.isDirectory() && !exportDir.mkdirs()) {
+            throw new IOException("Cannot create export directory " + exportDir);
+        }
+        deletePreviousExports(exportDir);
+        return exportDir;
+    }
+    
+    /**
+     * Only the latest export is kept so the cache directory stays bounded
+     */
+    private void deletePreviousExports(File exportDir) {
+        File[] files = exportDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                Log.w(TAG, "Failed to delete old export " + file.getName());
+            }
+        }
+    }
+}
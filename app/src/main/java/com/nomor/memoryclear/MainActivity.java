@@ -2,17 +2,14 @@ package com.nomor.memoryclear;
 
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Intent;
 import android.graphics.Color;
 import android.graphics.PorterDuff;
-import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.view.View;
-import android.view.animation.AccelerateDecelerateInterpolator;
 import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
@@ -20,6 +17,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
+import androidx.lifecycle.Lifecycle;
 import java.util.List;
 
 // AdMob imports
@@ -36,7 +34,7 @@ public class MainActivity extends AppCompatActivity {
     
     private static final String TAG = "MainActivity";
     
-    private View animatedCircle;
+    private PulseRingView animatedCircle;
     private TextView runningAppsCount;
     private Button whitelistButton;
     private Button runningAppsButton;
@@ -56,16 +54,22 @@ public class MainActivity extends AppCompatActivity {
     
     private AppManager appManager;
     private Handler mainHandler;
-    private Runnable updateRunnable;
     private boolean isAnimating = false;
     private ErrorLogger errorLogger;
     
+    // Updates the premium button when premium is activated or expires while this screen is up
+    private final AppPreferences.OnPremiumStateChangedListener premiumStateListener =
+            active -> updatePremiumButtonUI();
+    
     // Permission setup tracking
     private enum PermissionType {
         USAGE_STATS, ACCESSIBILITY, OVERLAY
     }
     
     private int currentPermissionIndex = 0;
+    private TaskScope taskScope;
+    private RefreshScheduler refreshScheduler;
+    private boolean fullyDrawnReported = false;
     private PermissionType[] permissionSequence = {
         PermissionType.USAGE_STATS,
         PermissionType.ACCESSIBILITY, 
@@ -97,6 +101,8 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        taskScope = new TaskScope(this);
+        refreshScheduler = new RefreshScheduler(this, taskScope, runningCountCallback);
         
         try {
             setContentView(R.layout.activity_main);
@@ -105,13 +111,15 @@ public class MainActivity extends AppCompatActivity {
             errorLogger = ErrorLogger.getInstance(this);
             errorLogger.logInfo(TAG, "MainActivity onCreate started");
             
-            // Initialize AdMob
-            initializeAdMob();
+            // AdMob is not needed for the first frame
+            StartupTasks.afterFirstDraw(this, this::initializeAdMob);
             
             appManager = new AppManager(this);
             mainHandler = new Handler(Looper.getMainLooper());
             
             initializeViews();
+            
+            // The circle's static look is part of the first frame; its animators start after it
             setupAnimatedCircle();
             setupClickListeners();
             
@@ -119,7 +127,7 @@ public class MainActivity extends AppCompatActivity {
             adaptUIForDevice();
             
             checkPermissionsAndSetup();
-            startPeriodicUpdate();
+            AppPreferences.addOnPremiumStateChangedListener(premiumStateListener);
             
             // Register broadcast receiver for force stop completion
             android.content.IntentFilter filter = new android.content.IntentFilter("com.nomor.memoryclear.FORCE_STOP_COMPLETED");
@@ -158,12 +166,21 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void initializeAdMob() {
+        // SDK initialization is safe off the main thread; its callback comes back on it
+        taskScope.launch(AppExecutors.io(), () -> {
+            try {
+                MobileAds.initialize(getApplicationContext(), initializationStatus -> {
+                    errorLogger.logInfo(TAG, "AdMob initialized successfully");
+                    taskScope.runOnMain(this::loadAds);
+                });
+            } catch (Exception e) {
+                errorLogger.logError(TAG, "Error initializing AdMob", e);
+            }
+        });
+    }
+    
+    private void loadAds() {
         try {
-            // Initialize AdMob
-            MobileAds.initialize(this, initializationStatus -> {
-                errorLogger.logInfo(TAG, "AdMob initialized successfully");
-            });
-            
             // Load banner ads
             loadBannerAds();
             
@@ -174,7 +191,7 @@ public class MainActivity extends AppCompatActivity {
             loadRewardedAd();
             
         } catch (Exception e) {
-            errorLogger.logError(TAG, "Error initializing AdMob", e);
+            errorLogger.logError(TAG, "Error loading ads", e);
         }
     }
     
@@ -591,16 +608,8 @@ public class MainActivity extends AppCompatActivity {
                 return;
             }
             
-            // Create animated gradient circle
-            GradientDrawable circleDrawable = new GradientDrawable();
-            circleDrawable.setShape(GradientDrawable.OVAL);
-            circleDrawable.setStroke(8, Color.parseColor("#4CAF50"));
-            circleDrawable.setColor(Color.parseColor("#E8F5E8"));
-            
-            animatedCircle.setBackground(circleDrawable);
-            
-            // Start rotating animation
-            startCircleAnimation();
+            // Start rotating animation once the first frame is up
+            StartupTasks.afterFirstDraw(this, this::startCircleAnimation);
             
             errorLogger.logInfo(TAG, "Animated circle setup completed");
             
@@ -611,53 +620,14 @@ public class MainActivity extends AppCompatActivity {
     
     private void startCircleAnimation() {
         try {
-            if (isAnimating || animatedCircle == null) return;
+            if (isAnimating || animatedCircle == null || isFinishing()) return;
             isAnimating = true;
             
-            // Rotation animation
-            ObjectAnimator rotationAnimator = ObjectAnimator.ofFloat(animatedCircle, "rotation", 0f, 360f);
-            rotationAnimator.setDuration(4000);
-            rotationAnimator.setRepeatCount(ValueAnimator.INFINITE);
-            rotationAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-            
-            // Scale animation for pulsing effect
-            ObjectAnimator scaleXAnimator = ObjectAnimator.ofFloat(animatedCircle, "scaleX", 1f, 1.1f, 1f);
-            scaleXAnimator.setDuration(2000);
-            scaleXAnimator.setRepeatCount(ValueAnimator.INFINITE);
-            
-            ObjectAnimator scaleYAnimator = ObjectAnimator.ofFloat(animatedCircle, "scaleY", 1f, 1.1f, 1f);
-            scaleYAnimator.setDuration(2000);
-            scaleYAnimator.setRepeatCount(ValueAnimator.INFINITE);
-            
-            // Color changing animation for the border
-            ValueAnimator colorAnimator = ValueAnimator.ofArgb(
-                Color.parseColor("#4CAF50"),
-                Color.parseColor("#2196F3"),
-                Color.parseColor("#FF9800"),
-                Color.parseColor("#E91E63"),
-                Color.parseColor("#4CAF50")
-            );
-            colorAnimator.setDuration(5000);
-            colorAnimator.setRepeatCount(ValueAnimator.INFINITE);
-            colorAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animator) {
-                    try {
-                        int color = (int) animator.getAnimatedValue();
-                        if (animatedCircle != null && animatedCircle.getBackground() instanceof GradientDrawable) {
-                            GradientDrawable drawable = (GradientDrawable) animatedCircle.getBackground();
-                            drawable.setStroke(8, color);
-                        }
-                    } catch (Exception e) {
-                        errorLogger.logError(TAG, "Error updating animation color", e);
-                    }
-                }
-            });
-            
-            // Combine all animations
-            AnimatorSet animatorSet = new AnimatorSet();
-            animatorSet.playTogether(rotationAnimator, scaleXAnimator, scaleYAnimator, colorAnimator);
-            animatorSet.start();
+            // Rotation and pulse on the ring's hardware layer; stays still while paused,
+            // with animations turned off or in battery saver
+            if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+                animatedCircle.start();
+            }
             
             errorLogger.logInfo(TAG, "Circle animation started successfully");
             
@@ -819,11 +789,10 @@ public class MainActivity extends AppCompatActivity {
                 rewardedAd.show(this, rewardItem -> {
                     try {
                         // User earned reward, activate premium for 1 day
-                        AppPreferences.setPremiumActive(true);
-                        AppPreferences.setPremiumExpiryTime(System.currentTimeMillis() + (24 * 60 * 60 * 1000)); // 1 day
+                        AppPreferences.activatePremium(System.currentTimeMillis() + (24 * 60 * 60 * 1000)); // 1 day
                         
+                        // The premium state listener refreshes the button
                         Toast.makeText(this, "Premium Speed activated for 24 hours!", Toast.LENGTH_LONG).show();
-                        updatePremiumButtonUI();
                         errorLogger.logInfo(TAG, "Premium activated via rewarded ad");
                         
                         // Load next rewarded ad
@@ -901,44 +870,55 @@ public class MainActivity extends AppCompatActivity {
      * @param forceRefresh If true, ignores cache and uses optimized post-force-stop detection
      */
     private void updateRunningAppsCount(boolean forceRefresh) {
-        new Thread(() -> {
+        // Coalesced with any scan already queued or running, and deferred while not visible
+        refreshScheduler.request(forceRefresh);
+    }
+    
+    private final RefreshScheduler.Callback runningCountCallback = new RefreshScheduler.Callback() {
+        @Override
+        public int loadCount(boolean forceRefresh) {
+            if (forceRefresh) {
+                int count = appManager.getRunningAppsCountForceRefresh();
+                errorLogger.logInfo(TAG, "Force refresh - running apps count: " + count);
+                return count;
+            }
+            return appManager.getRunningAppsCount();
+        }
+        
+        @Override
+        public void onCount(int count, boolean forceRefresh) {
             try {
-                final int count;
-                if (forceRefresh) {
-                    count = appManager.getRunningAppsCountForceRefresh();
-                    errorLogger.logInfo(TAG, "Force refresh - running apps count: " + count);
+                if (runningAppsCount != null) {
+                    runningAppsCount.setText(String.valueOf(count));
+                    animateCountChange();
+                    String refreshType = forceRefresh ? " [FORCE REFRESH]" : "";
+                    errorLogger.logInfo(TAG, "Running apps count updated: " + count + refreshType);
+                    
+                    // The first real count marks the screen as fully drawn for startup metrics
+                    if (!fullyDrawnReported) {
+                        fullyDrawnReported = true;
+                        reportFullyDrawn();
+                    }
                 } else {
-                    count = appManager.getRunningAppsCount();
+                    errorLogger.logWarning(TAG, "Running apps count view is null");
                 }
-                
-                runOnUiThread(() -> {
-                    try {
-                        if (runningAppsCount != null) {
-                            runningAppsCount.setText(String.valueOf(count));
-                            animateCountChange();
-                            String refreshType = forceRefresh ? " [FORCE REFRESH]" : "";
-                            errorLogger.logInfo(TAG, "Running apps count updated: " + count + refreshType);
-                        } else {
-                            errorLogger.logWarning(TAG, "Running apps count view is null");
-                        }
-                    } catch (Exception e) {
-                        errorLogger.logError(TAG, "Error updating UI with running apps count", e);
-                    }
-                });
             } catch (Exception e) {
-                errorLogger.logError(TAG, "Error getting running apps count", e);
-                runOnUiThread(() -> {
-                    try {
-                        if (runningAppsCount != null) {
-                            runningAppsCount.setText("0");
-                        }
-                    } catch (Exception uiError) {
-                        errorLogger.logError(TAG, "Error setting fallback count", uiError);
-                    }
-                });
+                errorLogger.logError(TAG, "Error updating UI with running apps count", e);
             }
-        }).start();
-    }
+        }
+        
+        @Override
+        public void onRefreshFailed(Exception e) {
+            errorLogger.logError(TAG, "Error getting running apps count", e);
+            try {
+                if (runningAppsCount != null) {
+                    runningAppsCount.setText("0");
+                }
+            } catch (Exception uiError) {
+                errorLogger.logError(TAG, "Error setting fallback count", uiError);
+            }
+        }
+    };
     
     private void animateCountChange() {
         ObjectAnimator scaleXAnimator = ObjectAnimator.ofFloat(runningAppsCount, "scaleX", 1f, 1.3f, 1f);
@@ -950,17 +930,6 @@ public class MainActivity extends AppCompatActivity {
         animatorSet.start();
     }
     
-    private void startPeriodicUpdate() {
-        updateRunnable = new Runnable() {
-            @Override
-            public void run() {
-                updateRunningAppsCount();
-                mainHandler.postDelayed(this, 5000); // Update every 5 seconds
-            }
-        };
-        mainHandler.post(updateRunnable);
-    }
-    
     private void showPermissionDialog(String title, String message, Runnable onPositive) {
         androidx.appcompat.app.AlertDialog.Builder builder = new androidx.appcompat.app.AlertDialog.Builder(this);
         builder.setTitle(title)
@@ -1425,7 +1394,10 @@ public class MainActivity extends AppCompatActivity {
             
             // Use force refresh when resuming to ensure accurate count after potential force stops
             updateRunningAppsCount(true);
-            updatePremiumButtonUI(); // Check premium status
+            
+            // The expiry event can fire late after deep sleep; settle the state before showing it
+            AppPreferences.checkPremiumExpiry();
+            updatePremiumButtonUI();
             
             // Update home button state
             if (homeButton != null) {
@@ -1435,19 +1407,39 @@ public class MainActivity extends AppCompatActivity {
                 moreButton.setTextColor(Color.parseColor("#757575"));
             }
             
+            // Resume the ring, unless it is still waiting for the first frame
+            if (isAnimating && animatedCircle != null) {
+                animatedCircle.start();
+            }
+            
             errorLogger.logInfo(TAG, "MainActivity resumed successfully with force refresh");
         } catch (Exception e) {
             errorLogger.logError(TAG, "Error in onResume", e);
         }
     }
     
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // No ring frames while another window covers this one or the app is in the background
+        if (animatedCircle != null) {
+            animatedCircle.stop();
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (refreshScheduler != null && errorLogger != null) {
+            errorLogger.logInfo(TAG, "Count refresh stats: " + refreshScheduler.describeStats());
+        }
+    }
+    
     @Override
     protected void onDestroy() {
         super.onDestroy();
         try {
-            if (mainHandler != null && updateRunnable != null) {
-                mainHandler.removeCallbacks(updateRunnable);
-            }
+            AppPreferences.removeOnPremiumStateChangedListener(premiumStateListener);
             
             // Unregister broadcast receiver
             try {
@@ -0,0 +1,153 @@
+package com.nomor.memoryclear;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+/**
+ * Reactive cleanup trigger. Samples ActivityManager.getMemoryInfo when the system reports
+ * memory trouble (onTrimMemory) and from a periodic job, and enqueues a force-stop batch of
+ * the top reclaim candidates once free RAM drops below the user's threshold.
+ *
+ * The trigger disarms after firing and only re-arms once free RAM has recovered past the
+ * threshold plus a hysteresis band, and at most a few batches run per hour.
+ */
+public class MemoryPressureMonitor {
+    
+    private static final String TAG = "MemoryPressureMonitor";
+    private static final String PREFS_NAME = "MemoryPressurePrefs";
+    private static final String KEY_ARMED = "armed";
+    private static final String KEY_RECENT_TRIGGERS = "recent_triggers";
+    
+    static final String WORK_NAME = "cleanup:memory";
+    static final int BATCH_SIZE = 5;
+    
+    private static final int HYSTERESIS_PERCENT = 5;
+    private static final long MIN_SAMPLE_INTERVAL_MS = 30 * 1000;
+    private static final long HOUR_MS = 60 * 60 * 1000;
+    
+    private static final ActivityManager.MemoryInfo sMemoryInfo = new ActivityManager.MemoryInfo();
+    private static long sLastSampleTime;
+    
+    /**
+     * Called from Application.onTrimMemory; only levels that signal device-wide pressure sample
+     */
+    public static void onTrimMemory(final Context context, int level) {
+        if (!AppPreferences.isMemoryTriggerEnabled()) {
+            return;
+        }
+        if (level != ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                && level != ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+                && level < ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return;
+        }
+        
+        AppExecutors.io().execute(() -> sample(context));
+    }
+    
+    /**
+     * Take one memory sample and enqueue a cleanup if the trigger fires
+     */
+    public static synchronized void sample(Context context) {
+        if (!AppPreferences.isMemoryTriggerEnabled()) {
+            return;
+        }
+        
+        long now = SystemClock.elapsedRealtime();
+        if (sLastSampleTime != 0 && now - sLastSampleTime < MIN_SAMPLE_INTERVAL_MS) {
+            return;
+        }
+        sLastSampleTime = now;
+        
+        try {
+            Context appContext = context.getApplicationContext();
+            ActivityManager activityManager = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+            if (activityManager == null) {
+                return;
+            }
+            activityManager.getMemoryInfo(sMemoryInfo);
+            
+            int freePercent = (int) (sMemoryInfo.availMem * 100 / Math.max(1, sMemoryInfo.totalMem));
+            int threshold = AppPreferences.getMemoryTriggerThreshold();
+            boolean underPressure = sMemoryInfo.lowMemory || freePercent < threshold;
+            
+            SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            boolean armed = prefs.getBoolean(KEY_ARMED, true);
+            
+            if (!armed) {
+                if (!underPressure && freePercent >= threshold + HYSTERESIS_PERCENT) {
+                    prefs.edit().putBoolean(KEY_ARMED, true).apply();
+                    android.util.Log.d(TAG, "Memory recovered to " + freePercent + "% free, trigger re-armed");
+                }
+                return;
+            }
+            
+            if (!underPressure) {
+                return;
+            }
+            
+            long triggerTime = System.currentTimeMillis();
+            String recentTriggers = pruneTriggers(prefs.getString(KEY_RECENT_TRIGGERS, ""), triggerTime);
+            int triggersThisHour = recentTriggers.isEmpty() ? 0 : recentTriggers.split(",").length;
+            if (triggersThisHour >= AppPreferences.getMemoryTriggerMaxPerHour()) {
+                android.util.Log.d(TAG, "Memory low (" + freePercent + "% free) but hourly cap reached");
+                return;
+            }
+            
+            prefs.edit()
+                    .putBoolean(KEY_ARMED, false)
+                    .putString(KEY_RECENT_TRIGGERS, recentTriggers.isEmpty()
+                            ? String.valueOf(triggerTime) : recentTriggers + "," + triggerTime)
+                    .apply();
+            
+            enqueueCleanup(appContext, freePercent);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error sampling memory", e);
+        }
+    }
+    
+    private static void enqueueCleanup(Context context, int freePercent) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ScheduledCleanupWorker.class)
+                .setInputData(new Data.Builder()
+                        .putString(ScheduledCleanupWorker.KEY_MODE, ScheduledCleanupWorker.MODE_MEMORY)
+                        .putString(ScheduledCleanupWorker.KEY_WINDOW_NAME, "Low memory")
+                        .putInt(ScheduledCleanupWorker.KEY_MAX_APPS, BATCH_SIZE)
+                        .build())
+                .build();
+        // KEEP: a batch already queued or running covers this trigger too
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request);
+        
+        ErrorLogger.getInstance(context).logInfo(TAG, "Memory pressure cleanup enqueued at " + freePercent + "% free");
+    }
+    
+    /**
+     * Drop trigger timestamps older than an hour from the comma separated list
+     */
+    private static String pruneTriggers(String triggers, long now) {
+        if (triggers.isEmpty()) {
+            return triggers;
+        }
+        
+        StringBuilder kept = new StringBuilder();
+        for (String trigger : triggers.split(",")) {
+            try {
+                if (now - Long.parseLong(trigger) < HOUR_MS) {
+                    if (kept.length() > 0) {
+                        kept.append(',');
+                    }
+                    kept.append(trigger);
+                }
+            } catch (NumberFormatException e) {
+                // Skip corrupt entries
+            }
+        }
+        return kept.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.nomor.memoryclear;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Debug;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Measures what a force-stop run actually frees: system available memory and the PSS of the
+ * target apps' processes, sampled before dispatch and again SETTLE_MS after the batch ends,
+ * once the killed processes are reaped and the system has caught up.
+ *
+ * Since Android 8 getRunningAppProcesses only lists our own processes, so target PSS is
+ * best effort; measuredProcesses says how many processes it covers.
+ */
+public class MemoryReclaimMeter {
+    
+    private static final String TAG = "MemoryReclaimMeter";
+    
+    static final long SETTLE_MS = 3000;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    
+    /**
+     * Memory at one point in time
+     */
+    public static class Sample {
+        public final long availMem;
+        public final long totalMem;
+        public final long targetPssKb;
+        public final int measuredProcesses;
+        
+        Sample(long availMem, long totalMem, long targetPssKb, int measuredProcesses) {
+            this.availMem = availMem;
+            this.totalMem = totalMem;
+            this.targetPssKb = targetPssKb;
+            this.measuredProcesses = measuredProcesses;
+        }
+    }
+    
+    /**
+     * Take a sample. Does binder calls, so call it off the main thread.
+     */
+    public static Sample sample(Context context, String[] targetPackages) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) {
+            return new Sample(0, 0, 0, 0);
+        }
+        
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        
+        long pssKb = 0;
+        int measured = 0;
+        try {
+            int[] pids = findTargetPids(activityManager, targetPackages);
+            if (pids.length > 0) {
+                // One batched call for all target processes
+                Debug.MemoryInfo[] infos = activityManager.getProcessMemoryInfo(pids);
+                if (infos != null) {
+                    for (Debug.MemoryInfo info : infos) {
+                        int pss = info.getTotalPss();
+                        if (pss > 0) {
+                            pssKb += pss;
+                            measured++;
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error measuring target PSS", e);
+        }
+        
+        return new Sample(memoryInfo.availMem, memoryInfo.totalMem, pssKb, measured);
+    }
+    
+    private static int[] findTargetPids(ActivityManager activityManager, String[] targetPackages) {
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager.getRunningAppProcesses();
+        if (processes == null || targetPackages == null) {
+            return new int[0];
+        }
+        
+        Set<String> targets = new HashSet<>();
+        for (String packageName : targetPackages) {
+            targets.add(packageName);
+        }
+        
+        List<Integer> pids = new ArrayList<>();
+        for (ActivityManager.RunningAppProcessInfo process : processes) {
+            if (process.pkgList == null) {
+                continue;
+            }
+            for (String packageName : process.pkgList) {
+                if (targets.contains(packageName)) {
+                    pids.add(process.pid);
+                    break;
+                }
+            }
+        }
+        
+        int[] result = new int[pids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pids.get(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Wait out the settle period, then sample. Call from a background thread.
+     */
+    public static Sample sampleAfterSettle(Context context, String[] targetPackages) throws InterruptedException {
+        Thread.sleep(SETTLE_MS);
+        return sample(context, targetPackages);
+    }
+    
+    /**
+     * Store both samples in the record; reclaimedMb is the rise in available memory
+     */
+    public static void fill(RunHistory.RunRecord record, Sample before, Sample after) {
+        record.availBeforeMb = before.availMem / BYTES_PER_MB;
+        record.availAfterMb = after.availMem / BYTES_PER_MB;
+        record.totalMb = after.totalMem / BYTES_PER_MB;
+        record.targetPssBeforeKb = before.targetPssKb;
+        record.targetPssAfterKb = after.targetPssKb;
+        record.reclaimedMb = Math.max(0, after.availMem - before.availMem) / BYTES_PER_MB;
+    }
+    
+    /**
+     * Human-readable outcome for dialogs and notifications
+     */
+    public static String describe(RunHistory.RunRecord record) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(record.reclaimedMb).append(" MB reclaimed (available ")
+            .append(record.availBeforeMb).append(" → ").append(record.availAfterMb)
+            .append(" of ").append(record.totalMb).append(" MB)");
+        if (record.targetPssBeforeKb > 0) {
+            long freedKb = Math.max(0, record.targetPssBeforeKb - record.targetPssAfterKb);
+            sb.append(", target apps released ").append(freedKb / 1024).append(" MB");
+        }
+        return sb.toString();
+    }
+}
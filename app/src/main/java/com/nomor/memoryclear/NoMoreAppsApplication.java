@@ -24,9 +24,19 @@ public class NoMoreAppsApplication extends Application {
         // Set up global exception handler
         setupGlobalExceptionHandler();
         
+        // Keep schedule suggestions learning in the background. WorkManager's first use opens its
+        // database, so this waits until the main thread has nothing else to do.
+        StartupTasks.whenIdle(() -> UsagePatternWorker.schedule(this));
+        
         android.util.Log.i(TAG, "No More Apps PRO Application initialized");
     }
     
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        MemoryPressureMonitor.onTrimMemory(this, level);
+    }
+    
     private void setupGlobalExceptionHandler() {
         Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
         
@@ -38,6 +48,9 @@ public class NoMoreAppsApplication extends Application {
                     errorLogger.logError("UncaughtException", 
                         "Uncaught exception in thread: " + thread.getName(), throwable);
                     
+                    // Logging only queues the record; make sure it is on disk before the process dies
+                    errorLogger.flush();
+                    
                     android.util.Log.e(TAG, "Uncaught exception logged to ErrorLogger", throwable);
                 } catch (Exception e) {
                     android.util.Log.e(TAG, "Failed to log uncaught exception", e);
@@ -0,0 +1,66 @@
+package com.nomor.memoryclear;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide counters for app detection scans and force stop batches.
+ * Cheap enough to update on every scan; included in log exports for field bug reports.
+ */
+public final class PerformanceMetrics {
+    
+    private static final AtomicLong sDetectionScans = new AtomicLong();
+    private static final AtomicLong sDetectionTotalMs = new AtomicLong();
+    private static volatile long sLastDetectionMs;
+    private static volatile int sLastDetectionCount;
+    
+    private static final AtomicLong sForceStopBatches = new AtomicLong();
+    private static final AtomicLong sForceStopAppsRequested = new AtomicLong();
+    private static final AtomicLong sForceStopClicks = new AtomicLong();
+    
+    private PerformanceMetrics() {
+    }
+    
+    public static void recordDetection(long durationMs, int appCount) {
+        sDetectionScans.incrementAndGet();
+        sDetectionTotalMs.addAndGet(durationMs);
+        sLastDetectionMs = durationMs;
+        sLastDetectionCount = appCount;
+    }
+    
+    public static void recordForceStopBatch(int appCount) {
+        sForceStopBatches.incrementAndGet();
+        sForceStopAppsRequested.addAndGet(appCount);
+    }
+    
+    public static void recordForceStopClick() {
+        sForceStopClicks.incrementAndGet();
+    }
+    
+    /**
+     * Snapshot of all counters since process start
+     */
+    public static JSONObject toJson() throws JSONException {
+        long scans = sDetectionScans.get();
+        
+        JSONObject detection = new JSONObject();
+        detection.put("scans", scans);
+        detection.put("totalMs", sDetectionTotalMs.get());
+        detection.put("averageMs", scans > 0 ? sDetectionTotalMs.get() / scans : 0);
+        detection.put("lastMs", sLastDetectionMs);
+        detection.put("lastAppCount", sLastDetectionCount);
+        
+        JSONObject forceStop = new JSONObject();
+        forceStop.put("batches", sForceStopBatches.get());
+        forceStop.put("appsRequested", sForceStopAppsRequested.get());
+        forceStop.put("forceStopClicks", sForceStopClicks.get());
+        
+        JSONObject metrics = new JSONObject();
+        metrics.put("type", "metrics");
+        metrics.put("detection", detection);
+        metrics.put("forceStop", forceStop);
+        return metrics;
+    }
+}
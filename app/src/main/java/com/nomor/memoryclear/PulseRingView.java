@@ -0,0 +1,215 @@
+package com.nomor.memoryclear;
+
+import android.animation.Animator;
+import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
+import android.animation.ValueAnimator;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.SweepGradient;
+import android.os.Build;
+import android.os.PowerManager;
+import android.provider.Settings;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+/**
+ * The home screen ring. The multi-colour stroke is a SweepGradient built once per size, so
+ * rotating the view cycles the colours without redrawing. While animating, the view sits on
+ * a hardware layer and only its rotation and scale change, which RenderThread applies to the
+ * cached layer; onDraw runs once per size, not once per frame.
+ *
+ * The ring stays still while animations are turned off in developer options or battery saver
+ * is on. Call start() and stop() from the activity's onResume() and onPause().
+ */
+public class PulseRingView extends View {
+    
+    private static final String TAG = "PulseRingView";
+    
+    private static final int FILL_COLOR = Color.parseColor("#E8F5E8");
+    private static final int[] STROKE_COLORS = {
+        Color.parseColor("#4CAF50"),
+        Color.parseColor("#2196F3"),
+        Color.parseColor("#FF9800"),
+        Color.parseColor("#E91E63"),
+        Color.parseColor("#4CAF50")
+    };
+    private static final float STROKE_WIDTH_PX = 8f;
+    
+    private static final long ROTATION_DURATION_MS = 4000;
+    private static final long PULSE_DURATION_MS = 2000;
+    private static final float PULSE_SCALE = 1.1f;
+    
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    
+    private ObjectAnimator rotationAnimator;
+    private ObjectAnimator pulseAnimator;
+    private boolean started;
+    private boolean receiverRegistered;
+    
+    // Battery saver can change while the activity stays resumed (quick settings)
+    private final BroadcastReceiver powerSaveReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            updateAnimation();
+        }
+    };
+    
+    public PulseRingView(Context context) {
+        this(context, null);
+    }
+    
+    public PulseRingView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        fillPaint.setStyle(Paint.Style.FILL);
+        fillPaint.setColor(FILL_COLOR);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        strokePaint.setStrokeWidth(STROKE_WIDTH_PX);
+    }
+    
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        strokePaint.setShader(new SweepGradient(w / 2f, h / 2f, STROKE_COLORS, null));
+    }
+    
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float cx = getWidth() / 2f;
+        float cy = getHeight() / 2f;
+        float radius = Math.min(cx, cy) - STROKE_WIDTH_PX / 2f;
+        if (radius <= 0) {
+            return;
+        }
+        canvas.drawCircle(cx, cy, radius, fillPaint);
+        canvas.drawCircle(cx, cy, radius, strokePaint);
+    }
+    
+    /**
+     * Animate from now on, unless animations are off or battery saver is on
+     */
+    public void start() {
+        started = true;
+        updateAnimation();
+    }
+    
+    /**
+     * Pause the animation and drop the hardware layer
+     */
+    public void stop() {
+        started = false;
+        updateAnimation();
+    }
+    
+    public boolean isRunning() {
+        return rotationAnimator != null && rotationAnimator.isStarted() && !rotationAnimator.isPaused();
+    }
+    
+    private void updateAnimation() {
+        boolean run = started && isAttachedToWindow() && animationsAllowed();
+        try {
+            if (run) {
+                resumeAnimators();
+            } else {
+                pauseAnimators();
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error updating ring animation", e);
+        }
+    }
+    
+    private void resumeAnimators() {
+        if (rotationAnimator == null) {
+            rotationAnimator = ObjectAnimator.ofFloat(this, View.ROTATION, 0f, 360f);
+            rotationAnimator.setDuration(ROTATION_DURATION_MS);
+            rotationAnimator.setRepeatCount(ValueAnimator.INFINITE);
+            rotationAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
+            
+            pulseAnimator = ObjectAnimator.ofPropertyValuesHolder(this,
+                PropertyValuesHolder.ofFloat(View.SCALE_X, 1f, PULSE_SCALE, 1f),
+                PropertyValuesHolder.ofFloat(View.SCALE_Y, 1f, PULSE_SCALE, 1f));
+            pulseAnimator.setDuration(PULSE_DURATION_MS);
+            pulseAnimator.setRepeatCount(ValueAnimator.INFINITE);
+        }
+        if (isRunning()) {
+            return;
+        }
+        
+        setLayerType(LAYER_TYPE_HARDWARE, null);
+        resume(rotationAnimator);
+        resume(pulseAnimator);
+    }
+    
+    private static void resume(Animator animator) {
+        if (!animator.isStarted()) {
+            animator.start();
+        } else {
+            animator.resume();
+        }
+    }
+    
+    private void pauseAnimators() {
+        if (rotationAnimator != null) {
+            rotationAnimator.pause();
+            pulseAnimator.pause();
+        }
+        if (getLayerType() != LAYER_TYPE_NONE) {
+            // The layer is an offscreen buffer; not worth keeping for a still ring
+            setLayerType(LAYER_TYPE_NONE, null);
+        }
+    }
+    
+    private boolean animationsAllowed() {
+        // Animator duration scale 0 ("Animation off"); infinite animators would otherwise spin
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            if (!ValueAnimator.areAnimatorsEnabled()) {
+                return false;
+            }
+        } else {
+            float scale = Settings.Global.getFloat(getContext().getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+            if (scale == 0f) {
+                return false;
+            }
+        }
+        
+        PowerManager powerManager = (PowerManager) getContext().getSystemService(Context.POWER_SERVICE);
+        return powerManager == null || !powerManager.isPowerSaveMode();
+    }
+    
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        try {
+            getContext().registerReceiver(powerSaveReceiver,
+                new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+            receiverRegistered = true;
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error registering power save receiver", e);
+        }
+        updateAnimation();
+    }
+    
+    @Override
+    protected void onDetachedFromWindow() {
+        if (receiverRegistered) {
+            getContext().unregisterReceiver(powerSaveReceiver);
+            receiverRegistered = false;
+        }
+        if (rotationAnimator != null) {
+            rotationAnimator.cancel();
+            pulseAnimator.cancel();
+            rotationAnimator = null;
+            pulseAnimator = null;
+        }
+        setLayerType(LAYER_TYPE_NONE, null);
+        super.onDetachedFromWindow();
+    }
+}
@@ -0,0 +1,201 @@
+package com.nomor.memoryclear;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * Drives the running-apps count refresh for a screen. Requests made in the same main-loop
+ * turn or while a scan is running are merged into one scan, nothing runs while the screen
+ * is stopped (requests wait for onStart), and the periodic refresh backs off from 5s to 60s
+ * while the count stays the same. All methods must be called on the main thread.
+ */
+public class RefreshScheduler implements DefaultLifecycleObserver {
+    
+    private static final long BASE_INTERVAL_MS = 5000;
+    private static final long MAX_INTERVAL_MS = 60000;
+    
+    /**
+     * Loads the count off the main thread and delivers it back on it
+     */
+    public interface Callback {
+        int loadCount(boolean forceRefresh) throws Exception;
+        
+        void onCount(int count, boolean forceRefresh);
+        
+        void onRefreshFailed(Exception e);
+    }
+    
+    private final TaskScope taskScope;
+    private final Callback callback;
+    private final Handler handler = AppExecutors.mainHandler();
+    
+    private boolean visible;
+    private boolean running;
+    private boolean runningForce;
+    private boolean pending;
+    private boolean pendingForce;
+    private boolean runPosted;
+    private int lastCount = -1;
+    private long intervalMs = BASE_INTERVAL_MS;
+    
+    private int scanCount;
+    private int coalescedCount;
+    private int skippedCount;
+    
+    private final Runnable runPendingRunnable = new Runnable() {
+        @Override
+        public void run() {
+            runPosted = false;
+            runPending();
+        }
+    };
+    
+    private final Runnable periodicRunnable = new Runnable() {
+        @Override
+        public void run() {
+            enqueue(false);
+        }
+    };
+    
+    public RefreshScheduler(LifecycleOwner owner, TaskScope taskScope, Callback callback) {
+        this.taskScope = taskScope;
+        this.callback = callback;
+        owner.getLifecycle().addObserver(this);
+    }
+    
+    /**
+     * Ask for a refresh, e.g. on resume or after a force stop. Also resets the back-off.
+     */
+    public void request(boolean forceRefresh) {
+        intervalMs = BASE_INTERVAL_MS;
+        enqueue(forceRefresh);
+    }
+    
+    private void enqueue(boolean forceRefresh) {
+        if (running && (!forceRefresh || runningForce)) {
+            // Answered by the scan already in flight
+            coalescedCount++;
+            return;
+        }
+        if (pending) {
+            coalescedCount++;
+        }
+        pending = true;
+        pendingForce |= forceRefresh;
+        
+        // Picked up in onStart, or once the running scan finishes
+        if (!visible || running) {
+            return;
+        }
+        if (!runPosted) {
+            // Post rather than run, so requests made in the same turn (onStart + onResume) merge
+            runPosted = true;
+            handler.post(runPendingRunnable);
+        }
+    }
+    
+    private void runPending() {
+        if (!pending || running || !visible) {
+            return;
+        }
+        final boolean force = pendingForce;
+        pending = false;
+        pendingForce = false;
+        running = true;
+        runningForce = force;
+        scanCount++;
+        handler.removeCallbacks(periodicRunnable);
+        
+        taskScope.launch(AppExecutors.io(), () -> {
+            try {
+                final int count = callback.loadCount(force);
+                taskScope.runOnMain(() -> onScanFinished(count, force, null));
+            } catch (Exception e) {
+                taskScope.runOnMain(() -> onScanFinished(lastCount, force, e));
+            }
+        });
+    }
+    
+    private void onScanFinished(int count, boolean force, Exception error) {
+        running = false;
+        
+        if (error != null) {
+            callback.onRefreshFailed(error);
+        } else {
+            // Back off while nothing changes; any change goes back to the base rate
+            if (count == lastCount) {
+                intervalMs = Math.min(intervalMs * 2, MAX_INTERVAL_MS);
+            } else {
+                intervalMs = BASE_INTERVAL_MS;
+            }
+            lastCount = count;
+            callback.onCount(count, force);
+        }
+        
+        if (pending) {
+            runPending();
+        } else {
+            schedulePeriodic();
+        }
+    }
+    
+    private void schedulePeriodic() {
+        handler.removeCallbacks(periodicRunnable);
+        if (!visible) {
+            return;
+        }
+        // Periodic scans a fixed 5s timer would have run in this interval
+        skippedCount += (int) (intervalMs / BASE_INTERVAL_MS) - 1;
+        handler.postDelayed(periodicRunnable, intervalMs);
+    }
+    
+    public int getScanCount() {
+        return scanCount;
+    }
+    
+    public int getCoalescedCount() {
+        return coalescedCount;
+    }
+    
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+    
+    public String describeStats() {
+        return "scans=" + scanCount + ", coalesced=" + coalescedCount + ", skipped=" + skippedCount
+            + ", interval=" + (intervalMs / 1000) + "s";
+    }
+    
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        visible = true;
+        intervalMs = BASE_INTERVAL_MS;
+        if (pending) {
+            // Requests made while stopped collapse into this one scan
+            if (!runPosted) {
+                runPosted = true;
+                handler.post(runPendingRunnable);
+            }
+        } else {
+            schedulePeriodic();
+        }
+    }
+    
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        visible = false;
+        handler.removeCallbacks(periodicRunnable);
+        handler.removeCallbacks(runPendingRunnable);
+        runPosted = false;
+    }
+    
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        handler.removeCallbacks(periodicRunnable);
+        handler.removeCallbacks(runPendingRunnable);
+    }
+}
@@ -0,0 +1,136 @@
+package com.nomor.memoryclear;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact history of manual, scheduled and triggered cleanup runs, newest last, capped at MAX_RUNS
+ */
+public class RunHistory {
+    
+    private static final String TAG = "RunHistory";
+    private static final String PREFS_NAME = "RunHistoryPrefs";
+    private static final String KEY_RUNS = "runs";
+    private static final int MAX_RUNS = 50;
+    
+    /**
+     * One cleanup run. Serialized with short keys to keep the stored history small.
+     */
+    public static class RunRecord {
+        public long time;
+        public String trigger;
+        public long durationMs;
+        public int attempted;
+        public int stopped;
+        public long reclaimedMb;
+        public boolean timedOut;
+        public boolean premiumSpeed;
+        
+        // Filled by MemoryReclaimMeter; 0 in records from before it existed
+        public long availBeforeMb;
+        public long availAfterMb;
+        public long totalMb;
+        public long targetPssBeforeKb;
+        public long targetPssAfterKb;
+        
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("t", time);
+            json.put("tr", trigger);
+            json.put("d", durationMs);
+            json.put("a", attempted);
+            json.put("s", stopped);
+            json.put("mb", reclaimedMb);
+            if (timedOut) {
+                json.put("to", true);
+            }
+            if (premiumSpeed) {
+                json.put("ps", true);
+            }
+            if (totalMb > 0) {
+                json.put("ab", availBeforeMb);
+                json.put("aa", availAfterMb);
+                json.put("tm", totalMb);
+            }
+            if (targetPssBeforeKb > 0 || targetPssAfterKb > 0) {
+                json.put("pb", targetPssBeforeKb);
+                json.put("pa", targetPssAfterKb);
+            }
+            return json;
+        }
+        
+        static RunRecord fromJson(JSONObject json) {
+            RunRecord record = new RunRecord();
+            record.time = json.optLong("t");
+            record.trigger = json.optString("tr", "");
+            record.durationMs = json.optLong("d");
+            record.attempted = json.optInt("a");
+            record.stopped = json.optInt("s");
+            record.reclaimedMb = json.optLong("mb");
+            record.timedOut = json.optBoolean("to", false);
+            record.premiumSpeed = json.optBoolean("ps", false);
+            record.availBeforeMb = json.optLong("ab");
+            record.availAfterMb = json.optLong("aa");
+            record.totalMb = json.optLong("tm");
+            record.targetPssBeforeKb = json.optLong("pb");
+            record.targetPssAfterKb = json.optLong("pa");
+            return record;
+        }
+    }
+    
+    public static synchronized void add(Context context, RunRecord record) {
+        try {
+            SharedPreferences prefs = getPrefs(context);
+            JSONArray runs = new JSONArray(prefs.getString(KEY_RUNS, "[]"));
+            
+            JSONArray trimmed = new JSONArray();
+            for (int i = Math.max(0, runs.length() - (MAX_RUNS - 1)); i < runs.length(); i++) {
+                trimmed.put(runs.get(i));
+            }
+            trimmed.put(record.toJson());
+            
+            prefs.edit().putString(KEY_RUNS, trimmed.toString()).apply();
+        } catch (JSONException e) {
+            android.util.Log.e(TAG, "Error saving run record", e);
+        }
+    }
+    
+    /**
+     * Epoch millis of the most recent recorded run, or 0 if there is none
+     */
+    public static synchronized long getLastRunTime(Context context) {
+        try {
+            JSONArray runs = new JSONArray(getPrefs(context).getString(KEY_RUNS, "[]"));
+            if (runs.length() > 0) {
+                return runs.getJSONObject(runs.length() - 1).optLong("t");
+            }
+        } catch (JSONException e) {
+            android.util.Log.e(TAG, "Error reading run history", e);
+        }
+        return 0;
+    }
+    
+    public static synchronized List<RunRecord> getRuns(Context context) {
+        List<RunRecord> records = new ArrayList<>();
+        try {
+            JSONArray runs = new JSONArray(getPrefs(context).getString(KEY_RUNS, "[]"));
+            for (int i = 0; i < runs.length(); i++) {
+                records.add(RunRecord.fromJson(runs.getJSONObject(i)));
+            }
+        } catch (JSONException e) {
+            android.util.Log.e(TAG, "Error reading run history", e);
+        }
+        return records;
+    }
+    
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
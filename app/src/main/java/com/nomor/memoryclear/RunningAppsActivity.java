@@ -11,7 +11,10 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class RunningAppsActivity extends AppCompatActivity {
     
@@ -23,14 +26,21 @@ public class RunningAppsActivity extends AppCompatActivity {
     private TextView titleText;
     private TextView emptyText;
     private TextView countText;
+    private TextView sortButton;
     
     private AppListAdapter adapter;
     private AppManager appManager;
     private boolean showExcluded = false;
+    private TaskScope taskScope;
+    
+    // Latest resource profiles of the listed apps; empty until the first load
+    private Map<String, AppResourceProfiler.Profile> resourceProfiles = Collections.emptyMap();
+    private boolean sortByMemory = false;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        taskScope = new TaskScope(this);
         setContentView(R.layout.activity_running_apps);
         
         appManager = new AppManager(this);
@@ -49,6 +59,8 @@ public class RunningAppsActivity extends AppCompatActivity {
         titleText = findViewById(R.id.title_text);
         emptyText = findViewById(R.id.empty_text);
         countText = findViewById(R.id.count_text);
+        sortButton = findViewById(R.id.btn_sort);
+        updateSortButton();
         
         if (showExcluded) {
             titleText.setText("Excluded Running Apps");
@@ -72,8 +84,7 @@ public class RunningAppsActivity extends AppCompatActivity {
             @Override
             public void onItemClick(AppInfo appInfo) {
                 // Toggle selection for force stopping
-                appInfo.isSelected = !appInfo.isSelected;
-                adapter.notifyDataSetChanged();
+                adapter.toggleSelection(appInfo);
                 updateCountText();
             }
             
@@ -88,6 +99,14 @@ public class RunningAppsActivity extends AppCompatActivity {
     private void setupClickListeners() {
         backButton.setOnClickListener(v -> finish());
         
+        sortButton.setOnClickListener(v -> {
+            sortByMemory = !sortByMemory;
+            updateSortButton();
+            List<AppInfo> apps = adapter.getAllApps();
+            sortApps(apps);
+            adapter.updateAppList(apps);
+        });
+        
         stopButton.setOnClickListener(v -> {
             List<AppInfo> selectedApps = adapter.getSelectedApps();
             if (selectedApps.isEmpty()) {
@@ -100,7 +119,7 @@ public class RunningAppsActivity extends AppCompatActivity {
     }
     
     private void loadApps() {
-        new Thread(() -> {
+        taskScope.launch(AppExecutors.io(), () -> {
             List<AppInfo> apps;
             if (showExcluded) {
                 apps = appManager.getExcludedRunningApps();
@@ -108,21 +127,47 @@ public class RunningAppsActivity extends AppCompatActivity {
                 apps = appManager.getRunningApps();
             }
             
-            runOnUiThread(() -> {
-                adapter.updateAppList(apps);
-                updateCountText();
-                
-                if (apps.isEmpty()) {
-                    emptyText.setVisibility(View.VISIBLE);
-                    recyclerView.setVisibility(View.GONE);
-                    countText.setVisibility(View.GONE);
-                } else {
-                    emptyText.setVisibility(View.GONE);
-                    recyclerView.setVisibility(View.VISIBLE);
-                    countText.setVisibility(View.VISIBLE);
-                }
+            // Memory, processes and services of every listed app in one batched profile
+            List<String> packages = new ArrayList<>(apps.size());
+            for (AppInfo app : apps) {
+                packages.add(app.packageName);
+            }
+            Map<String, AppResourceProfiler.Profile> profiles =
+                AppResourceProfiler.getInstance(this).profile(packages);
+            
+            taskScope.runOnMain(() -> {
+                resourceProfiles = profiles;
+                sortApps(apps);
+                adapter.setResourceProfiles(profiles);
+                adapter.updateAppList(apps, this::updateCountText);
+                updateEmptyState(apps.isEmpty());
             });
-        }).start();
+        });
+    }
+    
+    /**
+     * Name order, or largest memory cost first
+     */
+    private void sortApps(List<AppInfo> apps) {
+        Collections.sort(apps, sortByMemory
+            ? new AppResourceProfiler.MemoryOrder(resourceProfiles)
+            : AppInfo.NAME_ORDER);
+    }
+    
+    private void updateSortButton() {
+        sortButton.setText(sortByMemory ? "Sort: Memory" : "Sort: Name");
+    }
+    
+    private void updateEmptyState(boolean isEmpty) {
+        if (isEmpty) {
+            emptyText.setVisibility(View.VISIBLE);
+            recyclerView.setVisibility(View.GONE);
+            countText.setVisibility(View.GONE);
+        } else {
+            emptyText.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.VISIBLE);
+            countText.setVisibility(View.VISIBLE);
+        }
     }
     
     private void updateCountText() {
@@ -167,7 +212,8 @@ public class RunningAppsActivity extends AppCompatActivity {
                .setItems(options, (dialog, which) -> {
                    switch (which) {
                        case 0:
-                           if (appInfo.isWhitelisted || showExcluded) {
+                           boolean wasWhitelisted = appInfo.isWhitelisted || showExcluded;
+                           if (wasWhitelisted) {
                                AppPreferences.removeFromWhitelist(appInfo.packageName);
                                Toast.makeText(this, appInfo.appName + " removed from whitelist", 
                                    Toast.LENGTH_SHORT).show();
@@ -176,7 +222,14 @@ public class RunningAppsActivity extends AppCompatActivity {
                                Toast.makeText(this, appInfo.appName + " added to whitelist", 
                                    Toast.LENGTH_SHORT).show();
                            }
-                           loadApps();
+                           appInfo.isWhitelisted = !wasWhitelisted;
+                           
+                           // Whitelisted apps never appear in the running list, and the excluded
+                           // list only shows whitelisted apps, so either way this row goes away
+                           List<AppInfo> newList = adapter.getAllApps();
+                           newList.remove(appInfo);
+                           adapter.updateAppList(newList, this::updateCountText);
+                           updateEmptyState(newList.isEmpty());
                            break;
                        case 1:
                            showAppInfoDialog(appInfo);
@@ -0,0 +1,244 @@
+package com.nomor.memoryclear;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs one scheduled cleanup (or its 5 minute warning) for a cleanup window, and the
+ * memory-pressure sampling and cleanup batches queued by MemoryPressureMonitor
+ */
+public class ScheduledCleanupWorker extends Worker {
+    
+    private static final String TAG = "ScheduledCleanupWorker";
+    private static final String CHANNEL_ID = "ScheduleServiceChannel";
+    
+    // Upper bound per app is the normal-speed settings + process + confirmation delays plus slack.
+    // WorkManager stops a worker after 10 minutes, so the wait stays below that.
+    private static final long PER_APP_WAIT_MS = 5000;
+    private static final long BASE_WAIT_MS = 30000;
+    private static final long MAX_WAIT_MS = 9 * 60 * 1000;
+    
+    // Triggers closer together than this (e.g. a window and a memory trigger firing at once,
+    // or a job re-run after a boot race) are folded into the run that already happened
+    private static final long MIN_RUN_SPACING_MS = 2 * 60 * 1000;
+    
+    // Only one cleanup batch at a time across all windows and triggers
+    private static final AtomicBoolean sRunning = new AtomicBoolean(false);
+    
+    static final String KEY_MODE = "mode";
+    static final String KEY_WINDOW_NAME = "window_name";
+    static final String KEY_REQUIRES_SCREEN_OFF = "requires_screen_off";
+    static final String KEY_MAX_APPS = "max_apps";
+    static final String KEY_REPEAT_DAILY = "repeat_daily";
+    
+    static final String MODE_CLEANUP = "cleanup";
+    static final String MODE_WARNING = "warning";
+    static final String MODE_MEMORY = "memory";
+    static final String MODE_MEMORY_SAMPLE = "memory_sample";
+    
+    public ScheduledCleanupWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+    
+    @NonNull
+    @Override
+    public Result doWork() {
+        String mode = getInputData().getString(KEY_MODE);
+        String windowName = getInputData().getString(KEY_WINDOW_NAME);
+        
+        Result result = runOnce(mode, windowName);
+        if (getInputData().getBoolean(KEY_REPEAT_DAILY, false) && !(result instanceof Result.Retry)) {
+            // Daily windows are one-off jobs; queue the next occurrence behind this one. Always
+            // reported as success, since a failed job would also fail the one appended to it.
+            CleanupScheduler.scheduleNextDailyRun(getApplicationContext(), windowName, mode);
+            return Result.success();
+        }
+        return result;
+    }
+    
+    private Result runOnce(String mode, String windowName) {
+        try {
+            createNotificationChannel();
+            
+            if (MODE_WARNING.equals(mode)) {
+                showNotification("Scheduled Force Stop in 5 Minutes",
+                    "Apps will be force stopped automatically in 5 minutes (" + windowName + ")");
+                return Result.success();
+            }
+            
+            if (MODE_MEMORY_SAMPLE.equals(mode)) {
+                MemoryPressureMonitor.sample(getApplicationContext());
+                return Result.success();
+            }
+            
+            if (getInputData().getBoolean(KEY_REQUIRES_SCREEN_OFF, false) && isScreenOn()) {
+                android.util.Log.d(TAG, "Screen is on, deferring cleanup for " + windowName);
+                return Result.retry();
+            }
+            
+            if (!sRunning.compareAndSet(false, true)) {
+                android.util.Log.d(TAG, "Cleanup already running, skipping " + windowName);
+                return Result.success();
+            }
+            try {
+                long sinceLastRun = System.currentTimeMillis() - RunHistory.getLastRunTime(getApplicationContext());
+                if (sinceLastRun >= 0 && sinceLastRun < MIN_RUN_SPACING_MS) {
+                    android.util.Log.d(TAG, "Cleanup ran " + (sinceLastRun / 1000) + "s ago, skipping " + windowName);
+                    return Result.success();
+                }
+                executeScheduledForceStop(windowName, getInputData().getInt(KEY_MAX_APPS, Integer.MAX_VALUE));
+            } finally {
+                sRunning.set(false);
+            }
+            return Result.success();
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error during scheduled force stop", e);
+            ErrorLogger.getInstance(getApplicationContext()).logError(TAG, "Scheduled cleanup failed", e);
+            showNotification("Schedule Error",
+                "Error occurred during scheduled force stop: " + e.getMessage());
+            return Result.failure();
+        }
+    }
+    
+    private void executeScheduledForceStop(String windowName, int maxApps) throws InterruptedException {
+        Context context = getApplicationContext();
+        android.util.Log.d(TAG, "Executing scheduled force stop for " + windowName);
+        
+        if (!PermissionHelper.hasAccessibilityPermission(context)) {
+            showNotification("Schedule Failed",
+                "Accessibility permission is required for scheduled force stopping");
+            return;
+        }
+        
+        // Unattended runs always scan fresh; a cached list could include apps already stopped
+        AppManager appManager = new AppManager(context);
+        List<AppInfo> runningApps = maxApps == Integer.MAX_VALUE
+            ? appManager.getRunningAppsFresh()
+            : appManager.getReclaimCandidates(maxApps);
+        
+        if (runningApps.isEmpty()) {
+            showNotification("No Apps to Stop",
+                "No running apps found during scheduled force stop");
+            return;
+        }
+        
+        // Check if premium speed is active for scheduled tasks
+        boolean isPremiumActive = AppPreferences.isPremiumActive();
+        
+        // Start accessibility service to force stop apps
+        Intent serviceIntent = new Intent(context, ForceStopAccessibilityService.class);
+        serviceIntent.putExtra("action", "force_stop_apps");
+        serviceIntent.putExtra("premium_speed", isPremiumActive);
+        
+        String[] packageNames = new String[runningApps.size()];
+        for (int i = 0; i < runningApps.size(); i++) {
+            packageNames[i] = runningApps.get(i).packageName;
+        }
+        serviceIntent.putExtra("packages", packageNames);
+        
+        MemoryReclaimMeter.Sample before = MemoryReclaimMeter.sample(context, packageNames);
+        long timeoutMs = Math.min(MAX_WAIT_MS, packageNames.length * PER_APP_WAIT_MS + BASE_WAIT_MS);
+        
+        // Keep the CPU up for the batch, bounded by the same timeout we wait for it
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        PowerManager.WakeLock wakeLock = powerManager != null
+            ? powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "NoMoreApps:ScheduledCleanup")
+            : null;
+        ForceStopJobTracker.JobResult result;
+        try {
+            if (wakeLock != null) {
+                wakeLock.acquire(timeoutMs);
+            }
+            
+            String jobId = ForceStopJobTracker.newJob();
+            serviceIntent.putExtra(ForceStopJobTracker.EXTRA_JOB_ID, jobId);
+            context.startService(serviceIntent);
+            
+            // Wait for the service to report the real outcome. The accessibility service lives in
+            // this process, so the batch and this worker share the same lifetime.
+            result = ForceStopJobTracker.await(jobId, timeoutMs);
+        } finally {
+            if (wakeLock != null && wakeLock.isHeld()) {
+                wakeLock.release();
+            }
+        }
+        
+        MemoryReclaimMeter.Sample after = MemoryReclaimMeter.sampleAfterSettle(context, packageNames);
+        
+        RunHistory.RunRecord record = new RunHistory.RunRecord();
+        record.time = System.currentTimeMillis();
+        record.trigger = windowName;
+        record.premiumSpeed = isPremiumActive;
+        if (result != null) {
+            record.attempted = result.attempted;
+            record.stopped = result.stopped;
+            record.durationMs = result.durationMs;
+        } else {
+            record.attempted = packageNames.length;
+            record.durationMs = timeoutMs;
+            record.timedOut = true;
+        }
+        MemoryReclaimMeter.fill(record, before, after);
+        RunHistory.add(context, record);
+        
+        String speedNote = isPremiumActive ? " (Premium Speed)" : "";
+        if (record.timedOut) {
+            showNotification("Scheduled Force Stop Timed Out",
+                "No result after " + (timeoutMs / 1000) + "s for " + packageNames.length + " apps");
+        } else {
+            showNotification("Scheduled Force Stop Completed" + speedNote,
+                "Force stopped " + record.stopped + " of " + record.attempted + " apps in "
+                    + (record.durationMs / 1000) + "s, " + record.reclaimedMb + " MB freed");
+        }
+    }
+    
+    private boolean isScreenOn() {
+        PowerManager powerManager = (PowerManager) getApplicationContext().getSystemService(Context.POWER_SERVICE);
+        return powerManager != null && powerManager.isInteractive();
+    }
+    
+    private void createNotificationChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                "Scheduled Cleanup",
+                NotificationManager.IMPORTANCE_LOW
+            );
+            channel.setDescription("Notifications for scheduled force stopping");
+            channel.setLightColor(Color.GREEN);
+            
+            NotificationManager manager = getApplicationContext().getSystemService(NotificationManager.class);
+            if (manager != null) {
+                manager.createNotificationChannel(channel);
+            }
+        }
+    }
+    
+    private void showNotification(String title, String content) {
+        Context context = getApplicationContext();
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) {
+            return;
+        }
+        
+        manager.notify((int) System.currentTimeMillis(), new NotificationCompat.Builder(context, CHANNEL_ID)
+            .setContentTitle(title)
+            .setContentText(content)
+            .setSmallIcon(R.drawable.ic_launcher_foreground)
+            .setAutoCancel(true)
+            .build());
+    }
+}
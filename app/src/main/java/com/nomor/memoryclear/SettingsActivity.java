@@ -14,6 +14,7 @@ import android.widget.TimePicker;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
+import java.util.List;
 
 public class SettingsActivity extends AppCompatActivity {
     
@@ -28,6 +29,12 @@ public class SettingsActivity extends AppCompatActivity {
     private Switch scheduleSwitch;
     private TextView scheduleTimeText;
     private Button scheduleTimeButton;
+    private LinearLayout cleanupWindowsContainer;
+    private TextView scheduleSuggestionText;
+    private Button addCleanupWindowButton;
+    private Switch memoryTriggerSwitch;
+    private TextView memoryTriggerText;
+    private LinearLayout memoryTriggerButtons;
     private Switch dockSwitch;
     private TextView dockStatusText;
     
@@ -90,6 +97,12 @@ public class SettingsActivity extends AppCompatActivity {
             scheduleSwitch = findViewById(R.id.switch_schedule);
             scheduleTimeText = findViewById(R.id.schedule_time_text);
             scheduleTimeButton = findViewById(R.id.btn_schedule_time);
+            cleanupWindowsContainer = findViewById(R.id.cleanup_windows_container);
+            scheduleSuggestionText = findViewById(R.id.schedule_suggestion_text);
+            addCleanupWindowButton = findViewById(R.id.btn_add_cleanup_window);
+            memoryTriggerSwitch = findViewById(R.id.switch_memory_trigger);
+            memoryTriggerText = findViewById(R.id.memory_trigger_text);
+            memoryTriggerButtons = findViewById(R.id.memory_trigger_buttons);
             dockSwitch = findViewById(R.id.switch_dock);
             dockStatusText = findViewById(R.id.dock_status_text);
             
@@ -157,7 +170,7 @@ public class SettingsActivity extends AppCompatActivity {
                         if (isChecked) {
                             requestSchedulePermissions();
                         } else {
-                            stopScheduleService();
+                            syncSchedule();
                         }
                         errorLogger.logInfo(TAG, "Schedule switch toggled: " + isChecked);
                     } catch (Exception e) {
@@ -178,6 +191,43 @@ public class SettingsActivity extends AppCompatActivity {
                 });
             }
             
+            if (addCleanupWindowButton != null) {
+                addCleanupWindowButton.setOnClickListener(v -> showAddCleanupWindowDialog());
+            }
+            
+            if (scheduleSuggestionText != null) {
+                scheduleSuggestionText.setOnClickListener(v -> showScheduleSuggestionsDialog());
+            }
+            
+            if (memoryTriggerSwitch != null) {
+                memoryTriggerSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+                    try {
+                        AppPreferences.setMemoryTriggerEnabled(isChecked);
+                        updateMemoryTriggerUI();
+                        
+                        if (isChecked) {
+                            requestSchedulePermissions();
+                        } else {
+                            syncSchedule();
+                        }
+                        errorLogger.logInfo(TAG, "Memory trigger switch toggled: " + isChecked);
+                    } catch (Exception e) {
+                        errorLogger.logError(TAG, "Error handling memory trigger switch", e);
+                        Toast.makeText(this, "Error updating low memory setting", Toast.LENGTH_SHORT).show();
+                    }
+                });
+            }
+            
+            Button memoryThresholdButton = findViewById(R.id.btn_memory_threshold);
+            if (memoryThresholdButton != null) {
+                memoryThresholdButton.setOnClickListener(v -> showMemoryThresholdDialog());
+            }
+            
+            Button memoryMaxPerHourButton = findViewById(R.id.btn_memory_max_per_hour);
+            if (memoryMaxPerHourButton != null) {
+                memoryMaxPerHourButton.setOnClickListener(v -> showMemoryMaxPerHourDialog());
+            }
+            
             if (dockSwitch != null) {
                 dockSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
                     try {
@@ -345,7 +395,12 @@ public class SettingsActivity extends AppCompatActivity {
                 errorLogger.logWarning(TAG, "Dock switch is null in loadSettings");
             }
             
+            if (memoryTriggerSwitch != null) {
+                memoryTriggerSwitch.setChecked(AppPreferences.isMemoryTriggerEnabled());
+            }
+            
             updateScheduleUI();
+            updateMemoryTriggerUI();
             updateDockUI();
             
             errorLogger.logInfo(TAG, "Settings loaded successfully");
@@ -370,17 +425,87 @@ public class SettingsActivity extends AppCompatActivity {
                 errorLogger.logWarning(TAG, "Schedule time button is null in updateScheduleUI");
             }
             
+            if (addCleanupWindowButton != null) {
+                addCleanupWindowButton.setVisibility(isEnabled ? View.VISIBLE : View.GONE);
+            }
+            
             if (isEnabled && scheduleTimeText != null) {
                 String time = AppPreferences.getScheduleTime();
                 scheduleTimeText.setText("Scheduled time: " + time);
             }
             
+            updateCleanupWindowsUI(isEnabled);
+            updateScheduleSuggestions(isEnabled);
+            
             errorLogger.logInfo(TAG, "Schedule UI updated successfully");
         } catch (Exception e) {
             errorLogger.logError(TAG, "Error updating schedule UI", e);
         }
     }
     
+    private void updateMemoryTriggerUI() {
+        try {
+            boolean isEnabled = AppPreferences.isMemoryTriggerEnabled();
+            
+            if (memoryTriggerText != null) {
+                memoryTriggerText.setVisibility(isEnabled ? View.VISIBLE : View.GONE);
+                memoryTriggerText.setText("Below " + AppPreferences.getMemoryTriggerThreshold()
+                    + "% free RAM, at most " + AppPreferences.getMemoryTriggerMaxPerHour() + " times per hour");
+            }
+            if (memoryTriggerButtons != null) {
+                memoryTriggerButtons.setVisibility(isEnabled ? View.VISIBLE : View.GONE);
+            }
+        } catch (Exception e) {
+            errorLogger.logError(TAG, "Error updating memory trigger UI", e);
+        }
+    }
+    
+    private void showMemoryThresholdDialog() {
+        final int[] thresholds = {10, 15, 20, 25, 30};
+        String[] labels = new String[thresholds.length];
+        int checked = 0;
+        for (int i = 0; i < thresholds.length; i++) {
+            labels[i] = "Below " + thresholds[i] + "% free";
+            if (thresholds[i] == AppPreferences.getMemoryTriggerThreshold()) {
+                checked = i;
+            }
+        }
+        
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Free Memory Threshold")
+                .setSingleChoiceItems(labels, checked, (dialog, which) -> {
+                    AppPreferences.setMemoryTriggerThreshold(thresholds[which]);
+                    updateMemoryTriggerUI();
+                    errorLogger.logInfo(TAG, "Memory trigger threshold set to " + thresholds[which] + "%");
+                    dialog.dismiss();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+    
+    private void showMemoryMaxPerHourDialog() {
+        final int[] caps = {1, 2, 3, 4};
+        String[] labels = new String[caps.length];
+        int checked = 0;
+        for (int i = 0; i < caps.length; i++) {
+            labels[i] = caps[i] == 1 ? "Once per hour" : caps[i] + " times per hour";
+            if (caps[i] == AppPreferences.getMemoryTriggerMaxPerHour()) {
+                checked = i;
+            }
+        }
+        
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Maximum Cleanups")
+                .setSingleChoiceItems(labels, checked, (dialog, which) -> {
+                    AppPreferences.setMemoryTriggerMaxPerHour(caps[which]);
+                    updateMemoryTriggerUI();
+                    errorLogger.logInfo(TAG, "Memory trigger cap set to " + caps[which] + " per hour");
+                    dialog.dismiss();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+    
     private void updateDockUI() {
         try {
             boolean isEnabled = AppPreferences.isDockEnabled();
@@ -418,24 +543,7 @@ public class SettingsActivity extends AppCompatActivity {
             TimePickerDialog dialog = new TimePickerDialog(this, new TimePickerDialog.OnTimeSetListener() {
                 @Override
                 public void onTimeSet(TimePicker view, int hourOfDay, int minute) {
-                    try {
-                        String formattedTime = String.format("%02d:%02d", hourOfDay, minute);
-                        AppPreferences.setScheduleTime(formattedTime);
-                        updateScheduleUI();
-                        
-                        // Restart schedule service with new time
-                        if (AppPreferences.isScheduleEnabled()) {
-                            startScheduleService();
-                        }
-                        
-                        Toast.makeText(SettingsActivity.this, 
-                            "Schedule time updated to " + formattedTime, Toast.LENGTH_SHORT).show();
-                        
-                        errorLogger.logInfo(TAG, "Schedule time updated to " + formattedTime);
-                    } catch (Exception e) {
-                        errorLogger.logError(TAG, "Error setting schedule time", e);
-                        Toast.makeText(SettingsActivity.this, "Error updating schedule time", Toast.LENGTH_SHORT).show();
-                    }
+                    applyScheduleTime(hourOfDay, minute);
                 }
             }, hour, minute, true);
             
@@ -449,14 +557,104 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
     
+    private void applyScheduleTime(int hourOfDay, int minute) {
+        try {
+            String formattedTime = String.format("%02d:%02d", hourOfDay, minute);
+            AppPreferences.setScheduleTime(formattedTime);
+            updateScheduleUI();
+            
+            // Re-enqueue the daily window with the new time
+            if (AppPreferences.isScheduleEnabled()) {
+                syncSchedule();
+            }
+            
+            Toast.makeText(this, "Schedule time updated to " + formattedTime, Toast.LENGTH_SHORT).show();
+            
+            errorLogger.logInfo(TAG, "Schedule time updated to " + formattedTime);
+        } catch (Exception e) {
+            errorLogger.logError(TAG, "Error setting schedule time", e);
+            Toast.makeText(this, "Error updating schedule time", Toast.LENGTH_SHORT).show();
+        }
+    }
+    
+    /**
+     * Shows the cached usage-pattern suggestions; never analyzes on the main thread
+     */
+    private void updateScheduleSuggestions(boolean isEnabled) {
+        if (scheduleSuggestionText == null) {
+            return;
+        }
+        
+        UsagePatternAnalyzer.Suggestions suggestions = UsagePatternAnalyzer.getCachedSuggestions(this);
+        if (!isEnabled || suggestions == null || suggestions.times.isEmpty()) {
+            scheduleSuggestionText.setVisibility(View.GONE);
+            if (isEnabled && suggestions == null) {
+                UsagePatternWorker.runNow(this);
+            }
+            return;
+        }
+        
+        StringBuilder text = new StringBuilder("Suggested times:");
+        for (UsagePatternAnalyzer.TimeSuggestion time : suggestions.times) {
+            text.append(' ').append(time.getTimeText());
+        }
+        if (!suggestions.targetPackages.isEmpty()) {
+            text.append("\nOften left running: ");
+            int shown = Math.min(3, suggestions.targetPackages.size());
+            for (int i = 0; i < shown; i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+                text.append(getAppLabel(suggestions.targetPackages.get(i)));
+            }
+        }
+        scheduleSuggestionText.setText(text);
+        scheduleSuggestionText.setVisibility(View.VISIBLE);
+    }
+    
+    private void showScheduleSuggestionsDialog() {
+        try {
+            UsagePatternAnalyzer.Suggestions suggestions = UsagePatternAnalyzer.getCachedSuggestions(this);
+            if (suggestions == null || suggestions.times.isEmpty()) {
+                return;
+            }
+            
+            String[] items = new String[suggestions.times.size()];
+            for (int i = 0; i < items.length; i++) {
+                UsagePatternAnalyzer.TimeSuggestion time = suggestions.times.get(i);
+                items[i] = time.getTimeText() + " - " + time.reason;
+            }
+            
+            new androidx.appcompat.app.AlertDialog.Builder(this)
+                    .setTitle("Based on " + suggestions.daysAnalyzed + " days of usage")
+                    .setItems(items, (dialog, which) -> {
+                        UsagePatternAnalyzer.TimeSuggestion time = suggestions.times.get(which);
+                        applyScheduleTime(time.hour, time.minute);
+                    })
+                    .setNegativeButton("Cancel", null)
+                    .show();
+        } catch (Exception e) {
+            errorLogger.logError(TAG, "Error showing schedule suggestions", e);
+        }
+    }
+    
+    private String getAppLabel(String packageName) {
+        try {
+            return getPackageManager().getApplicationLabel(
+                getPackageManager().getApplicationInfo(packageName, 0)).toString();
+        } catch (Exception e) {
+            return packageName;
+        }
+    }
+    
     private void requestSchedulePermissions() {
         try {
+            // Jobs are enqueued either way; each run re-checks the permission before force stopping
+            syncSchedule();
             if (!PermissionHelper.hasAccessibilityPermission(this)) {
                 showPermissionDialog("Accessibility Permission Required",
                     "Schedule force closing needs Accessibility permission to automatically force stop apps in background.",
                     () -> PermissionHelper.requestAccessibilityPermission(this));
-            } else {
-                startScheduleService();
             }
             errorLogger.logInfo(TAG, "Schedule permission check completed");
         } catch (Exception e) {
@@ -479,32 +677,141 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
     
-    private void startScheduleService() {
+    private void syncSchedule() {
         try {
-            Intent intent = new Intent(this, ScheduleService.class);
-            intent.setAction("START_SCHEDULE");
-            startService(intent);
-            Toast.makeText(this, "Schedule service started", Toast.LENGTH_SHORT).show();
-            errorLogger.logInfo(TAG, "Schedule service started successfully");
+            CleanupScheduler.sync(this);
+            errorLogger.logInfo(TAG, "Cleanup schedule synced");
         } catch (Exception e) {
-            errorLogger.logError(TAG, "Error starting schedule service", e);
-            Toast.makeText(this, "Error starting schedule service", Toast.LENGTH_SHORT).show();
+            errorLogger.logError(TAG, "Error syncing cleanup schedule", e);
+            Toast.makeText(this, "Error updating schedule", Toast.LENGTH_SHORT).show();
         }
     }
     
-    private void stopScheduleService() {
+    private void updateCleanupWindowsUI(boolean isEnabled) {
+        if (cleanupWindowsContainer == null) {
+            return;
+        }
+        
+        cleanupWindowsContainer.removeAllViews();
+        List<CleanupWindow> windows = AppPreferences.getAdditionalCleanupWindows();
+        cleanupWindowsContainer.setVisibility(isEnabled && !windows.isEmpty() ? View.VISIBLE : View.GONE);
+        
+        for (CleanupWindow window : windows) {
+            TextView windowText = new TextView(this);
+            windowText.setText(window.name + ": " + window.describe());
+            windowText.setTextSize(14);
+            windowText.setTextColor(androidx.core.content.ContextCompat.getColor(this, R.color.primary_color));
+            windowText.setPadding(0, 8, 0, 8);
+            windowText.setOnClickListener(v -> confirmRemoveCleanupWindow(window.name));
+            cleanupWindowsContainer.addView(windowText);
+        }
+    }
+    
+    /**
+     * Walks through window type, timing and constraints with plain list dialogs
+     */
+    private void showAddCleanupWindowDialog() {
         try {
-            Intent intent = new Intent(this, ScheduleService.class);
-            intent.setAction("STOP_SCHEDULE");
-            startService(intent);
-            Toast.makeText(this, "Schedule service stopped", Toast.LENGTH_SHORT).show();
-            errorLogger.logInfo(TAG, "Schedule service stopped successfully");
+            String[] types = {"Daily at a set time", "Repeat at an interval"};
+            new androidx.appcompat.app.AlertDialog.Builder(this)
+                    .setTitle("New Cleanup Window")
+                    .setItems(types, (dialog, which) -> {
+                        if (which == 0) {
+                            new TimePickerDialog(this, (view, hourOfDay, minute) -> {
+                                CleanupWindow window = CleanupWindow.daily(null, hourOfDay, minute);
+                                window.name = "Daily " + window.getTimeText();
+                                showWindowConstraintsDialog(window);
+                            }, 2, 0, true).show();
+                        } else {
+                            showIntervalDialog();
+                        }
+                    })
+                    .setNegativeButton("Cancel", null)
+                    .show();
         } catch (Exception e) {
-            errorLogger.logError(TAG, "Error stopping schedule service", e);
-            Toast.makeText(this, "Error stopping schedule service", Toast.LENGTH_SHORT).show();
+            errorLogger.logError(TAG, "Error showing add cleanup window dialog", e);
         }
     }
     
+    private void showIntervalDialog() {
+        final int[] intervals = {15, 30, 60, 180, 360, 720};
+        String[] labels = new String[intervals.length];
+        for (int i = 0; i < intervals.length; i++) {
+            labels[i] = CleanupWindow.interval(null, intervals[i]).describe();
+        }
+        
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Repeat Interval")
+                .setItems(labels, (dialog, which) -> {
+                    CleanupWindow window = CleanupWindow.interval(labels[which], intervals[which]);
+                    showWindowConstraintsDialog(window);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+    
+    private void showWindowConstraintsDialog(CleanupWindow window) {
+        String[] constraints = {"Only while charging", "Only when device is idle", "Only when screen is off"};
+        final boolean[] checked = new boolean[constraints.length];
+        
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Run Conditions")
+                .setMultiChoiceItems(constraints, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("Add", (dialog, which) -> {
+                    window.requiresCharging = checked[0];
+                    window.requiresIdle = checked[1];
+                    window.requiresScreenOff = checked[2];
+                    addCleanupWindow(window);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+    
+    private void addCleanupWindow(CleanupWindow window) {
+        try {
+            List<CleanupWindow> windows = AppPreferences.getAdditionalCleanupWindows();
+            for (CleanupWindow existing : windows) {
+                if (existing.name.equals(window.name)) {
+                    Toast.makeText(this, "A window named " + window.name + " already exists", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+            }
+            
+            windows.add(window);
+            AppPreferences.setAdditionalCleanupWindows(windows);
+            syncSchedule();
+            updateScheduleUI();
+            errorLogger.logInfo(TAG, "Cleanup window added: " + window.name);
+        } catch (Exception e) {
+            errorLogger.logError(TAG, "Error adding cleanup window", e);
+            Toast.makeText(this, "Error adding cleanup window", Toast.LENGTH_SHORT).show();
+        }
+    }
+    
+    private void confirmRemoveCleanupWindow(String name) {
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Remove Cleanup Window")
+                .setMessage("Stop running cleanups for \"" + name + "\"?")
+                .setPositiveButton("Remove", (dialog, which) -> {
+                    try {
+                        List<CleanupWindow> windows = AppPreferences.getAdditionalCleanupWindows();
+                        for (int i = windows.size() - 1; i >= 0; i--) {
+                            if (windows.get(i).name.equals(name)) {
+                                windows.remove(i);
+                            }
+                        }
+                        AppPreferences.setAdditionalCleanupWindows(windows);
+                        syncSchedule();
+                        updateScheduleUI();
+                        errorLogger.logInfo(TAG, "Cleanup window removed: " + name);
+                    } catch (Exception e) {
+                        errorLogger.logError(TAG, "Error removing cleanup window", e);
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+    
     private void startDockService() {
         try {
             Intent intent = new Intent(this, FloatingDockService.class);
@@ -0,0 +1,73 @@
+package com.nomor.memoryclear;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Defers start-up work that the first frame does not need. Ads, animations and background
+ * job registration run after the first draw or once the main thread goes idle, keeping
+ * them off the cold-start path.
+ */
+public final class StartupTasks {
+    
+    private static final String TAG = "StartupTasks";
+    
+    private StartupTasks() {
+    }
+    
+    /**
+     * Run on the main thread right after the activity draws its first frame.
+     * Call from onCreate.
+     */
+    public static void afterFirstDraw(Activity activity, final Runnable task) {
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean fired;
+            
+            @Override
+            public void onDraw() {
+                if (fired) {
+                    return;
+                }
+                fired = true;
+                
+                // Listeners can't be removed during dispatch, and posting lets the frame finish first
+                final ViewTreeObserver.OnDrawListener self = this;
+                AppExecutors.mainHandler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        ViewTreeObserver observer = decorView.getViewTreeObserver();
+                        if (observer.isAlive()) {
+                            observer.removeOnDrawListener(self);
+                        }
+                        runSafely(task);
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Run once the main thread has no more pending messages. Must be called on the main thread.
+     */
+    public static void whenIdle(final Runnable task) {
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                runSafely(task);
+                return false;
+            }
+        });
+    }
+    
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Deferred startup task failed", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nomor.memoryclear;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Background work tied to an Activity's lifecycle. When the owner is destroyed, running
+ * tasks are interrupted, queued ones never start, and results posted back to the main
+ * thread are dropped, so no task outlives or touches a destroyed Activity.
+ */
+public class TaskScope implements DefaultLifecycleObserver {
+    
+    private static final String TAG = "TaskScope";
+    
+    private final Set<Future<?>> tasks = Collections.newSetFromMap(new ConcurrentHashMap<Future<?>, Boolean>());
+    private volatile boolean cancelled;
+    
+    public TaskScope(LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(this);
+    }
+    
+    /**
+     * Run work on a pool from AppExecutors; a no-op once the scope is cancelled
+     */
+    public Future<?> launch(Executor executor, final Runnable work) {
+        FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    work.run();
+                } catch (Exception e) {
+                    android.util.Log.e(TAG, "Task failed", e);
+                }
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                tasks.remove(this);
+            }
+        };
+        
+        if (cancelled) {
+            task.cancel(false);
+            return task;
+        }
+        tasks.add(task);
+        executor.execute(task);
+        return task;
+    }
+    
+    /**
+     * Post to the main thread, skipped if the scope was cancelled by the time it runs
+     */
+    public void runOnMain(final Runnable action) {
+        if (cancelled) {
+            return;
+        }
+        AppExecutors.mainHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                if (!cancelled) {
+                    action.run();
+                }
+            }
+        });
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    public void cancel() {
+        cancelled = true;
+        for (Future<?> task : tasks) {
+            task.cancel(true);
+        }
+        tasks.clear();
+        AppExecutors.purge();
+    }
+    
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        cancel();
+    }
+}
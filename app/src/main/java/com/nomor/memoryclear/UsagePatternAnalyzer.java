@@ -0,0 +1,462 @@
+package com.nomor.memoryclear;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Learns when the device is idle and when apps pile up in the background, and proposes
+ * cleanup times and target apps from it.
+ *
+ * Usage events are streamed once each, from a persisted cursor, into fixed-size aggregates:
+ * a 14 day ring of per-hour foreground seconds and background transitions, plus decaying
+ * per-app background weights. Nothing is materialized per event, and each update only reads
+ * events newer than the last one. Suggestions are cached so Settings can show them instantly.
+ */
+public class UsagePatternAnalyzer {
+    
+    private static final String TAG = "UsagePatternAnalyzer";
+    private static final String PREFS_NAME = "UsagePatternPrefs";
+    private static final String KEY_CURSOR = "cursor";
+    private static final String KEY_FG_PACKAGE = "fg_package";
+    private static final String KEY_FG_START = "fg_start";
+    private static final String KEY_FG_COUNTED = "fg_counted";
+    private static final String KEY_DAYS = "days";
+    private static final String KEY_ACTIVE = "active_seconds";
+    private static final String KEY_BACKGROUND = "background_counts";
+    private static final String KEY_APP_WEIGHTS = "app_weights";
+    private static final String KEY_DECAY_DAY = "decay_day";
+    private static final String KEY_SUGGESTIONS = "suggestions";
+    
+    private static final int DAYS = 14;
+    private static final int HOURS = 24;
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    
+    // A foreground session without a closing event (crash, reboot, missed shutdown) is only
+    // credited this long, so it cannot fill the idle hours the suggestions are built from
+    private static final long MAX_SESSION_MS = 4 * HOUR_MS;
+    
+    private static final int MIN_DAYS_FOR_SUGGESTIONS = 3;
+    private static final int IDLE_SECONDS_PER_HOUR = 120;
+    private static final double APP_WEIGHT_DECAY = (DAYS - 1) / (double) DAYS;
+    private static final int MAX_TRACKED_APPS = 50;
+    private static final int MAX_TARGET_APPS = 8;
+    
+    /**
+     * A proposed daily cleanup time with the reason it was picked
+     */
+    public static class TimeSuggestion {
+        public final int hour;
+        public final int minute;
+        public final String reason;
+        
+        TimeSuggestion(int hour, int minute, String reason) {
+            this.hour = hour;
+            this.minute = minute;
+            this.reason = reason;
+        }
+        
+        public String getTimeText() {
+            return String.format(Locale.US, "%02d:%02d", hour, minute);
+        }
+    }
+    
+    /**
+     * Cached analysis result
+     */
+    public static class Suggestions {
+        public final List<TimeSuggestion> times = new ArrayList<>();
+        public final List<String> targetPackages = new ArrayList<>();
+        public int daysAnalyzed;
+        public long computedAt;
+    }
+    
+    /**
+     * Stream events since the last update into the aggregates and refresh the cached suggestions.
+     * Call off the main thread.
+     */
+    public static synchronized void update(Context context) {
+        if (!PermissionHelper.hasUsageStatsPermission(context)) {
+            return;
+        }
+        
+        try {
+            SharedPreferences prefs = getPrefs(context);
+            UsageStatsManager usageStatsManager =
+                (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+            if (usageStatsManager == null) {
+                return;
+            }
+            
+            long now = System.currentTimeMillis();
+            long cursor = Math.max(prefs.getLong(KEY_CURSOR, 0), now - DAYS * DAY_MS);
+            
+            Buckets buckets = new Buckets(
+                readLongArray(prefs, KEY_DAYS, DAYS),
+                readLongArray(prefs, KEY_ACTIVE, DAYS * HOURS),
+                readLongArray(prefs, KEY_BACKGROUND, DAYS * HOURS));
+            Map<String, Double> appWeights = readWeights(prefs);
+            decayWeights(appWeights, prefs.getInt(KEY_DECAY_DAY, localDay(now)), localDay(now));
+            
+            String fgPackage = prefs.getString(KEY_FG_PACKAGE, null);
+            long fgStart = prefs.getLong(KEY_FG_START, 0);
+            long fgCounted = prefs.getLong(KEY_FG_COUNTED, fgStart);
+            String ownPackage = context.getPackageName();
+            
+            // One reused Event; a background transition only counts once the next foreground
+            // app turns out to be a different one, so moving between activities of an app is ignored
+            UsageEvents events = usageStatsManager.queryEvents(cursor + 1, now);
+            UsageEvents.Event event = new UsageEvents.Event();
+            String leftPackage = null;
+            long leftTime = 0;
+            int eventCount = 0;
+            while (events.hasNextEvent()) {
+                events.getNextEvent(event);
+                eventCount++;
+                long timestamp = event.getTimeStamp();
+                int type = event.getEventType();
+                
+                if (type == UsageEvents.Event.MOVE_TO_FOREGROUND) {
+                    String packageName = event.getPackageName();
+                    if (fgPackage != null) {
+                        countSession(buckets, fgStart, fgCounted, timestamp);
+                    }
+                    if (leftPackage != null && !leftPackage.equals(packageName)) {
+                        recordLeftInBackground(buckets, appWeights, leftPackage, leftTime, ownPackage);
+                    }
+                    leftPackage = null;
+                    fgPackage = packageName;
+                    fgStart = timestamp;
+                    fgCounted = timestamp;
+                } else if (type == UsageEvents.Event.MOVE_TO_BACKGROUND) {
+                    String packageName = event.getPackageName();
+                    if (packageName.equals(fgPackage)) {
+                        countSession(buckets, fgStart, fgCounted, timestamp);
+                        fgPackage = null;
+                    }
+                    leftPackage = packageName;
+                    leftTime = timestamp;
+                } else if (type == UsageEvents.Event.SCREEN_NON_INTERACTIVE
+                    || type == UsageEvents.Event.DEVICE_SHUTDOWN) {
+                    // Android 9+: the screen went off or the device shut down, so nothing is in use
+                    if (fgPackage != null) {
+                        countSession(buckets, fgStart, fgCounted, timestamp);
+                        fgPackage = null;
+                    }
+                }
+                cursor = timestamp;
+            }
+            if (leftPackage != null) {
+                recordLeftInBackground(buckets, appWeights, leftPackage, leftTime, ownPackage);
+            }
+            
+            // Count the open foreground session up to now; the rest is added on the next update.
+            // One that has been open longer than any real session lost its closing event; drop it.
+            if (fgPackage != null) {
+                fgCounted = countSession(buckets, fgStart, fgCounted, now);
+                if (now - fgStart >= MAX_SESSION_MS) {
+                    fgPackage = null;
+                }
+            }
+            
+            trimWeights(appWeights);
+            Suggestions suggestions = computeSuggestions(buckets, appWeights, now);
+            
+            prefs.edit()
+                .putLong(KEY_CURSOR, Math.max(cursor, now))
+                .putString(KEY_FG_PACKAGE, fgPackage)
+                .putLong(KEY_FG_START, fgStart)
+                .putLong(KEY_FG_COUNTED, fgCounted)
+                .putString(KEY_DAYS, toJson(buckets.days))
+                .putString(KEY_ACTIVE, toJson(buckets.active))
+                .putString(KEY_BACKGROUND, toJson(buckets.background))
+                .putString(KEY_APP_WEIGHTS, new JSONObject(appWeights).toString())
+                .putInt(KEY_DECAY_DAY, localDay(now))
+                .putString(KEY_SUGGESTIONS, suggestionsToJson(suggestions))
+                .apply();
+            
+            android.util.Log.d(TAG, "Processed " + eventCount + " usage events, "
+                + suggestions.daysAnalyzed + " days analyzed");
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error analyzing usage patterns", e);
+        }
+    }
+    
+    /**
+     * Credit the part of a foreground session not counted yet, up to end but no further than
+     * MAX_SESSION_MS after the session started
+     *
+     * @return the time the session is now counted up to
+     */
+    private static long countSession(Buckets buckets, long sessionStart, long countedUntil, long end) {
+        long cappedEnd = Math.min(end, sessionStart + MAX_SESSION_MS);
+        if (cappedEnd <= countedUntil) {
+            return countedUntil;
+        }
+        buckets.addActiveTime(countedUntil, cappedEnd);
+        return cappedEnd;
+    }
+    
+    private static void recordLeftInBackground(Buckets buckets, Map<String, Double> appWeights,
+                                               String packageName, long timestamp, String ownPackage) {
+        buckets.background[buckets.slotFor(timestamp)]++;
+        if (!packageName.equals(ownPackage)) {
+            Double weight = appWeights.get(packageName);
+            appWeights.put(packageName, weight == null ? 1.0 : weight + 1.0);
+        }
+    }
+    
+    /**
+     * Last computed suggestions, or null if none are available yet. Cheap; safe on the main thread.
+     */
+    public static Suggestions getCachedSuggestions(Context context) {
+        String json = getPrefs(context).getString(KEY_SUGGESTIONS, null);
+        if (json == null) {
+            return null;
+        }
+        
+        try {
+            JSONObject object = new JSONObject(json);
+            Suggestions suggestions = new Suggestions();
+            suggestions.daysAnalyzed = object.optInt("days");
+            suggestions.computedAt = object.optLong("at");
+            JSONArray times = object.optJSONArray("times");
+            for (int i = 0; times != null && i < times.length(); i++) {
+                JSONObject time = times.getJSONObject(i);
+                suggestions.times.add(new TimeSuggestion(time.getInt("h"), time.getInt("m"), time.optString("why")));
+            }
+            JSONArray apps = object.optJSONArray("apps");
+            for (int i = 0; apps != null && i < apps.length(); i++) {
+                suggestions.targetPackages.add(apps.getString(i));
+            }
+            return suggestions;
+        } catch (JSONException e) {
+            android.util.Log.e(TAG, "Error reading cached suggestions", e);
+            return null;
+        }
+    }
+    
+    private static Suggestions computeSuggestions(Buckets buckets, Map<String, Double> appWeights, long now) {
+        Suggestions suggestions = new Suggestions();
+        suggestions.computedAt = now;
+        
+        int today = localDay(now);
+        long[] activeByHour = new long[HOURS];
+        long[] backgroundByHour = new long[HOURS];
+        for (int slot = 0; slot < DAYS; slot++) {
+            if (buckets.days[slot] == 0 || today - buckets.days[slot] >= DAYS) {
+                continue;
+            }
+            suggestions.daysAnalyzed++;
+            for (int hour = 0; hour < HOURS; hour++) {
+                activeByHour[hour] += buckets.active[slot * HOURS + hour];
+                backgroundByHour[hour] += buckets.background[slot * HOURS + hour];
+            }
+        }
+        if (suggestions.daysAnalyzed < MIN_DAYS_FOR_SUGGESTIONS) {
+            return suggestions;
+        }
+        
+        // Longest circular run of hours that are idle on average
+        int bestStart = -1;
+        int bestLength = 0;
+        for (int start = 0; start < HOURS; start++) {
+            int length = 0;
+            while (length < HOURS
+                && activeByHour[(start + length) % HOURS] / suggestions.daysAnalyzed < IDLE_SECONDS_PER_HOUR) {
+                length++;
+            }
+            if (length > bestLength) {
+                bestLength = length;
+                bestStart = start;
+            }
+        }
+        if (bestLength == HOURS) {
+            suggestions.times.add(new TimeSuggestion(bestStart, 0, "Device is rarely used at any hour"));
+        } else if (bestStart >= 0) {
+            suggestions.times.add(new TimeSuggestion(bestStart, 0, String.format(Locale.US,
+                "Device is usually idle from %02d:00 to %02d:00", bestStart, (bestStart + bestLength) % HOURS)));
+        }
+        
+        // Just after the hour in which the most apps get sent to the background
+        int busiestHour = 0;
+        for (int hour = 1; hour < HOURS; hour++) {
+            if (backgroundByHour[hour] > backgroundByHour[busiestHour]) {
+                busiestHour = hour;
+            }
+        }
+        int afterBusiest = (busiestHour + 1) % HOURS;
+        if (backgroundByHour[busiestHour] > 0 && afterBusiest != bestStart) {
+            suggestions.times.add(new TimeSuggestion(afterBusiest, 0, String.format(Locale.US,
+                "Most apps are left running in the background around %02d:00", busiestHour)));
+        }
+        
+        // Apps most often left in the background, excluding whitelisted ones
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(appWeights.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Double>>() {
+            @Override
+            public int compare(Map.Entry<String, Double> e1, Map.Entry<String, Double> e2) {
+                return Double.compare(e2.getValue(), e1.getValue());
+            }
+        });
+        Set<String> whitelist = AppPreferences.getWhitelistedApps();
+        for (Map.Entry<String, Double> entry : entries) {
+            if (suggestions.targetPackages.size() >= MAX_TARGET_APPS) {
+                break;
+            }
+            if (!whitelist.contains(entry.getKey())) {
+                suggestions.targetPackages.add(entry.getKey());
+            }
+        }
+        return suggestions;
+    }
+    
+    /**
+     * 14 day ring of hourly aggregates. A day slot is recycled, and its hours zeroed, the first
+     * time a timestamp from a newer day maps onto it.
+     */
+    private static class Buckets {
+        final long[] days;
+        final long[] active;
+        final long[] background;
+        
+        Buckets(long[] days, long[] active, long[] background) {
+            this.days = days;
+            this.active = active;
+            this.background = background;
+        }
+        
+        int slotFor(long timestamp) {
+            long local = timestamp + TimeZone.getDefault().getOffset(timestamp);
+            long day = local / DAY_MS;
+            int daySlot = (int) (day % DAYS);
+            if (days[daySlot] != day) {
+                days[daySlot] = day;
+                for (int hour = 0; hour < HOURS; hour++) {
+                    active[daySlot * HOURS + hour] = 0;
+                    background[daySlot * HOURS + hour] = 0;
+                }
+            }
+            return daySlot * HOURS + (int) ((local % DAY_MS) / HOUR_MS);
+        }
+        
+        /**
+         * Spread a foreground session over the local hour buckets it covers
+         */
+        void addActiveTime(long start, long end) {
+            long time = start;
+            while (time < end) {
+                long offset = TimeZone.getDefault().getOffset(time);
+                long hourEnd = ((time + offset) / HOUR_MS + 1) * HOUR_MS - offset;
+                long segmentEnd = Math.min(end, hourEnd);
+                active[slotFor(time)] += (segmentEnd - time) / 1000;
+                time = segmentEnd;
+            }
+        }
+    }
+    
+    private static int localDay(long timestamp) {
+        return (int) ((timestamp + TimeZone.getDefault().getOffset(timestamp)) / DAY_MS);
+    }
+    
+    private static void decayWeights(Map<String, Double> appWeights, int lastDecayDay, int today) {
+        int elapsed = today - lastDecayDay;
+        if (elapsed <= 0) {
+            return;
+        }
+        double factor = Math.pow(APP_WEIGHT_DECAY, elapsed);
+        Iterator<Map.Entry<String, Double>> iterator = appWeights.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Double> entry = iterator.next();
+            double weight = entry.getValue() * factor;
+            if (weight < 0.5) {
+                iterator.remove();
+            } else {
+                entry.setValue(weight);
+            }
+        }
+    }
+    
+    /**
+     * Keep only the heaviest MAX_TRACKED_APPS entries so the stored map stays bounded
+     */
+    private static void trimWeights(Map<String, Double> appWeights) {
+        if (appWeights.size() <= MAX_TRACKED_APPS) {
+            return;
+        }
+        List<Double> weights = new ArrayList<>(appWeights.values());
+        Collections.sort(weights, Collections.<Double>reverseOrder());
+        double cutoff = weights.get(MAX_TRACKED_APPS - 1);
+        Iterator<Map.Entry<String, Double>> iterator = appWeights.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() < cutoff) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    private static Map<String, Double> readWeights(SharedPreferences prefs) throws JSONException {
+        Map<String, Double> weights = new HashMap<>();
+        JSONObject object = new JSONObject(prefs.getString(KEY_APP_WEIGHTS, "{}"));
+        Iterator<String> keys = object.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            weights.put(key, object.getDouble(key));
+        }
+        return weights;
+    }
+    
+    private static long[] readLongArray(SharedPreferences prefs, String key, int size) throws JSONException {
+        long[] values = new long[size];
+        String json = prefs.getString(key, null);
+        if (json != null) {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < size && i < array.length(); i++) {
+                values[i] = array.getLong(i);
+            }
+        }
+        return values;
+    }
+    
+    private static String toJson(long[] values) {
+        JSONArray array = new JSONArray();
+        for (long value : values) {
+            array.put(value);
+        }
+        return array.toString();
+    }
+    
+    private static String suggestionsToJson(Suggestions suggestions) throws JSONException {
+        JSONObject object = new JSONObject();
+        object.put("days", suggestions.daysAnalyzed);
+        object.put("at", suggestions.computedAt);
+        JSONArray times = new JSONArray();
+        for (TimeSuggestion time : suggestions.times) {
+            times.put(new JSONObject().put("h", time.hour).put("m", time.minute).put("why", time.reason));
+        }
+        object.put("times", times);
+        object.put("apps", new JSONArray(suggestions.targetPackages));
+        return object.toString();
+    }
+    
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
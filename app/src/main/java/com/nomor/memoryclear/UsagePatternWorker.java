@@ -0,0 +1,65 @@
+package com.nomor.memoryclear;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds new usage events into UsagePatternAnalyzer a few times a day, while the device is
+ * otherwise idle, so the cached schedule suggestions stay current
+ */
+public class UsagePatternWorker extends Worker {
+    
+    private static final String WORK_NAME = "analysis:usage";
+    private static final String WORK_NAME_NOW = "analysis:usage:now";
+    
+    public UsagePatternWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+    
+    @NonNull
+    @Override
+    public Result doWork() {
+        UsagePatternAnalyzer.update(getApplicationContext());
+        return Result.success();
+    }
+    
+    /**
+     * Enqueue the periodic analysis once; later calls keep the existing job
+     */
+    public static void schedule(Context context) {
+        try {
+            PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(UsagePatternWorker.class, 6, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder()
+                    .setRequiresBatteryNotLow(true)
+                    .build())
+                .build();
+            WorkManager.getInstance(context.getApplicationContext())
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+        } catch (Exception e) {
+            android.util.Log.e("UsagePatternWorker", "Error scheduling usage analysis", e);
+        }
+    }
+    
+    /**
+     * Run an analysis pass soon, e.g. when Settings has no suggestions to show yet
+     */
+    public static void runNow(Context context) {
+        try {
+            WorkManager.getInstance(context.getApplicationContext()).enqueueUniqueWork(WORK_NAME_NOW,
+                ExistingWorkPolicy.KEEP, new OneTimeWorkRequest.Builder(UsagePatternWorker.class).build());
+        } catch (Exception e) {
+            android.util.Log.e("UsagePatternWorker", "Error requesting usage analysis", e);
+        }
+    }
+}
@@ -9,6 +9,9 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 public class WhitelistActivity extends AppCompatActivity {
@@ -23,10 +26,12 @@ public class WhitelistActivity extends AppCompatActivity {
     
     private AppListAdapter adapter;
     private AppManager appManager;
+    private TaskScope taskScope;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        taskScope = new TaskScope(this);
         setContentView(R.layout.activity_whitelist);
         
         appManager = new AppManager(this);
@@ -55,10 +60,7 @@ public class WhitelistActivity extends AppCompatActivity {
             @Override
             public void onItemClick(AppInfo appInfo) {
                 // Remove from whitelist
-                AppPreferences.removeFromWhitelist(appInfo.packageName);
-                Toast.makeText(WhitelistActivity.this, 
-                    appInfo.appName + " removed from whitelist", Toast.LENGTH_SHORT).show();
-                loadWhitelistedApps();
+                removeFromWhitelist(appInfo);
             }
             
             @Override
@@ -78,48 +80,102 @@ public class WhitelistActivity extends AppCompatActivity {
     }
     
     private void loadWhitelistedApps() {
-        new Thread(() -> {
+        taskScope.launch(AppExecutors.io(), () -> {
             List<AppInfo> whitelistedApps = appManager.getExcludedRunningApps();
-            runOnUiThread(() -> {
-                adapter.updateAppList(whitelistedApps);
-                
-                if (whitelistedApps.isEmpty()) {
-                    emptyText.setVisibility(View.VISIBLE);
-                    recyclerView.setVisibility(View.GONE);
-                } else {
-                    emptyText.setVisibility(View.GONE);
-                    recyclerView.setVisibility(View.VISIBLE);
-                }
+            taskScope.runOnMain(() -> {
+                adapter.updateAppList(whitelistedApps, this::updateEmptyState);
             });
-        }).start();
+        });
+    }
+    
+    private void updateEmptyState() {
+        if (adapter.getItemCount() == 0) {
+            emptyText.setVisibility(View.VISIBLE);
+            recyclerView.setVisibility(View.GONE);
+        } else {
+            emptyText.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.VISIBLE);
+        }
+    }
+    
+    /**
+     * Whitelist all picked apps in one persist and insert them into the current list,
+     * without resolving the existing entries again
+     */
+    private void addToWhitelist(List<AppInfo> selectedApps) {
+        List<String> packageNames = new ArrayList<>();
+        for (AppInfo app : selectedApps) {
+            packageNames.add(app.packageName);
+            app.isWhitelisted = true;
+        }
+        AppPreferences.updateWhitelist(packageNames, Collections.<String>emptyList());
+        
+        List<AppInfo> newList = adapter.getAllApps();
+        newList.addAll(selectedApps);
+        Collections.sort(newList, new Comparator<AppInfo>() {
+            @Override
+            public int compare(AppInfo a1, AppInfo a2) {
+                return a1.appName.compareToIgnoreCase(a2.appName);
+            }
+        });
+        adapter.updateAppList(newList, this::updateEmptyState);
+        
+        String message = selectedApps.size() == 1
+                ? selectedApps.get(0).appName + " added to whitelist"
+                : selectedApps.size() + " apps added to whitelist";
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+    }
+    
+    private void removeFromWhitelist(AppInfo appInfo) {
+        AppPreferences.removeFromWhitelist(appInfo.packageName);
+        
+        List<AppInfo> newList = adapter.getAllApps();
+        newList.remove(appInfo);
+        adapter.updateAppList(newList, this::updateEmptyState);
+        
+        Toast.makeText(this, appInfo.appName + " removed from whitelist", Toast.LENGTH_SHORT).show();
     }
     
     private void showAddToWhitelistDialog() {
-        new Thread(() -> {
-            List<AppInfo> allApps = appManager.getAllInstalledApps();
-            
-            // Filter out already whitelisted apps
-            allApps.removeIf(app -> app.isWhitelisted);
+        // Open right away and fill the picker as batches of labels resolve
+        AppSelectionDialog dialog = new AppSelectionDialog(this, new ArrayList<AppInfo>());
+        dialog.setOnAppsSelectedListener(new AppSelectionDialog.OnAppsSelectedListener() {
+            @Override
+            public void onAppsSelected(List<AppInfo> selectedApps) {
+                addToWhitelist(selectedApps);
+            }
+        });
+        dialog.show();
+        dialog.setLoading(true);
+        
+        taskScope.launch(AppExecutors.io(), () -> {
+            try {
+                appManager.streamInstalledApps(true, AppManager.INSTALLED_APPS_BATCH_SIZE,
+                    new AppManager.InstalledAppsCallback() {
+                        @Override
+                        public boolean onBatch(List<AppInfo> batch) {
+                            if (dialog.isClosed()) {
+                                return false;
+                            }
+                            taskScope.runOnMain(() -> dialog.addApps(batch));
+                            return true;
+                        }
+                    });
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Error loading installed apps", e);
+            }
             
-            runOnUiThread(() -> {
-                if (allApps.isEmpty()) {
-                    Toast.makeText(this, "All apps are already whitelisted!", Toast.LENGTH_SHORT).show();
+            taskScope.runOnMain(() -> {
+                if (dialog.isClosed()) {
                     return;
                 }
-                
-                AppSelectionDialog dialog = new AppSelectionDialog(this, allApps);
-                dialog.setOnAppSelectedListener(new AppSelectionDialog.OnAppSelectedListener() {
-                    @Override
-                    public void onAppSelected(AppInfo appInfo) {
-                        AppPreferences.addToWhitelist(appInfo.packageName);
-                        Toast.makeText(WhitelistActivity.this, 
-                            appInfo.appName + " added to whitelist", Toast.LENGTH_SHORT).show();
-                        loadWhitelistedApps();
-                    }
-                });
-                dialog.show();
+                dialog.setLoading(false);
+                if (dialog.getAppCount() == 0) {
+                    dialog.dismiss();
+                    Toast.makeText(this, "All apps are already whitelisted!", Toast.LENGTH_SHORT).show();
+                }
             });
-        }).start();
+        });
     }
     
     private void showAppOptions(AppInfo appInfo) {
@@ -128,10 +184,7 @@ public class WhitelistActivity extends AppCompatActivity {
                .setItems(new String[]{"Remove from Whitelist", "App Info"}, (dialog, which) -> {
                    switch (which) {
                        case 0:
-                           AppPreferences.removeFromWhitelist(appInfo.packageName);
-                           Toast.makeText(this, appInfo.appName + " removed from whitelist", 
-                               Toast.LENGTH_SHORT).show();
-                           loadWhitelistedApps();
+                           removeFromWhitelist(appInfo);
                            break;
                        case 1:
                            showAppInfoDialog(appInfo);
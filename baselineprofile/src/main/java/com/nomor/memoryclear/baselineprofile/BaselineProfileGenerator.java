@@ -0,0 +1,93 @@
+package com.nomor.memoryclear.baselineprofile;
+
+import static org.junit.Assert.assertTrue;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the classes and methods used on the main journey: launch, the running apps list,
+ * and the analyze screen. The output lands in app/src/release/generated/baselineProfiles
+ * and is compiled ahead of time at install through profileinstaller.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+    
+    private static final String TARGET_PACKAGE = "com.nomor.memoryclear";
+    private static final long UI_TIMEOUT_MS = 5000;
+    
+    // Negative buttons of the first-launch and permission dialogs MainActivity may show
+    private static final String[] DISMISS_BUTTONS = {"Later", "Not Now", "Skip for Now", "Maybe Later", "Cancel"};
+    
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+    
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(TARGET_PACKAGE, scope -> {
+            launchToRunningApps(scope);
+            openAnalyze(scope.getDevice());
+            return Unit.INSTANCE;
+        });
+    }
+    
+    private static void launchToRunningApps(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        scope.pressHome();
+        scope.startActivityAndWait();
+        dismissStartupDialogs(device);
+        
+        device.findObject(By.res(TARGET_PACKAGE, "btn_running_apps")).click();
+        if (!device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "btn_stop")), UI_TIMEOUT_MS)) {
+            // An interstitial ad was shown first
+            device.pressBack();
+            device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "btn_stop")), UI_TIMEOUT_MS);
+        }
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "app_name")), UI_TIMEOUT_MS);
+    }
+    
+    /**
+     * Open the analyze screen with the detected apps, which are all selected by default,
+     * without starting a force stop
+     */
+    private static void openAnalyze(UiDevice device) {
+        if (!device.hasObject(By.res(TARGET_PACKAGE, "app_name"))) {
+            // No running apps detected on this device; the list screen is still profiled
+            return;
+        }
+        device.findObject(By.res(TARGET_PACKAGE, "btn_stop")).click();
+        assertTrue("Analyze screen did not open",
+            device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "btn_start")), UI_TIMEOUT_MS));
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "app_name")), UI_TIMEOUT_MS);
+        device.pressBack();
+    }
+    
+    private static void dismissStartupDialogs(UiDevice device) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            boolean dismissed = false;
+            for (String text : DISMISS_BUTTONS) {
+                UiObject2 button = device.findObject(By.text(text));
+                if (button != null) {
+                    button.click();
+                    device.waitForIdle();
+                    dismissed = true;
+                    break;
+                }
+            }
+            if (!dismissed) {
+                return;
+            }
+        }
+    }
+}
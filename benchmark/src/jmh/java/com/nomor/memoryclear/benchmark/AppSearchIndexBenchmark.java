@@ -0,0 +1,62 @@
+package com.nomor.memoryclear.benchmark;
+
+import com.nomor.memoryclear.AppInfo;
+import com.nomor.memoryclear.AppSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AppSelectionDialog filtering: building the index, and typing a query one character at a
+ * time the way the dialog narrows it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AppSearchIndexBenchmark {
+    
+    private static final String QUERY = "musica";
+    
+    @Param({"1000", "10000"})
+    public int appCount;
+    
+    private List<AppInfo> apps;
+    private AppSearchIndex index;
+    
+    @Setup
+    public void setUp() {
+        apps = SyntheticApps.apps(appCount, 11);
+        index = new AppSearchIndex();
+        index.addAll(apps);
+    }
+    
+    @Benchmark
+    public AppSearchIndex buildIndex() {
+        AppSearchIndex built = new AppSearchIndex();
+        built.addAll(apps);
+        return built;
+    }
+    
+    @Benchmark
+    public AppSearchIndex.Result typeQuery() {
+        AppSearchIndex.Result result = null;
+        for (int length = 1; length <= QUERY.length(); length++) {
+            result = index.search(QUERY.substring(0, length), result);
+        }
+        return result;
+    }
+    
+    @Benchmark
+    public AppSearchIndex.Result freshQuery() {
+        return index.search("studio", null);
+    }
+}
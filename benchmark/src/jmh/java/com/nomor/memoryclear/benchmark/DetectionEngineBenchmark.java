@@ -0,0 +1,77 @@
+package com.nomor.memoryclear.benchmark;
+
+import com.nomor.memoryclear.AppInfo;
+import com.nomor.memoryclear.DetectionEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging four overlapping strategy reports into one deduplicated, sorted list, and the
+ * critical system app check every reported package goes through
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DetectionEngineBenchmark {
+    
+    @Param({"100", "1000", "10000"})
+    public int packageCount;
+    
+    private List<String> reports;
+    private Set<String> whitelist;
+    private final DetectionEngine.LabelResolver labels = new DetectionEngine.LabelResolver() {
+        @Override
+        public String resolveLabel(String packageName) {
+            return SyntheticApps.labelFor(packageName);
+        }
+    };
+    
+    @Setup
+    public void setUp() {
+        List<String> packages = SyntheticApps.packageNames(packageCount, 42);
+        
+        // Usage stats, processes, extended and services each report most packages again
+        reports = new ArrayList<>(packages.size() * 4);
+        for (int strategy = 0; strategy < 4; strategy++) {
+            List<String> report = new ArrayList<>(packages.subList(strategy * packages.size() / 8, packages.size()));
+            Collections.shuffle(report, new java.util.Random(strategy));
+            reports.addAll(report);
+        }
+        
+        whitelist = new HashSet<>(packages.subList(0, packages.size() / 20));
+    }
+    
+    @Benchmark
+    public List<AppInfo> mergeStrategies() {
+        DetectionEngine engine = new DetectionEngine(whitelist, labels);
+        for (String packageName : reports) {
+            engine.offer(packageName);
+        }
+        return engine.getApps();
+    }
+    
+    @Benchmark
+    public int isCriticalSystemApp() {
+        int critical = 0;
+        for (String packageName : reports) {
+            if (DetectionEngine.isCriticalSystemApp(packageName)) {
+                critical++;
+            }
+        }
+        return critical;
+    }
+}
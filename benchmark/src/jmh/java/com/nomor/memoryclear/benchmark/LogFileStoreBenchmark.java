@@ -0,0 +1,73 @@
+package com.nomor.memoryclear.benchmark;
+
+import com.nomor.memoryclear.LogFileStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ErrorLogger's storage: appending one record, and reading the viewer's 100 most recent
+ * records from full files
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogFileStoreBenchmark {
+    
+    // Same limits as ErrorLogger
+    private static final int MAX_RECORDS_PER_FILE = 2000;
+    private static final int MAX_LOGS = 100;
+    
+    private static final String RECORD = "{\"time\":1700000000000,\"tag\":\"MainActivity\","
+        + "\"message\":\"Running apps count updated: 12\",\"level\":\"INFO\",\"seq\":1234}";
+    
+    private File directory;
+    private LogFileStore store;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = File.createTempFile("logstore", "");
+        directory.delete();
+        directory.mkdirs();
+        store = new LogFileStore(new File(directory, "log.ndjson"), new File(directory, "log.1.ndjson"),
+            MAX_RECORDS_PER_FILE);
+        
+        // Start from the steady state: a rolled file plus a current one
+        for (int i = 0; i < MAX_RECORDS_PER_FILE * 3 / 2; i++) {
+            store.append(RECORD);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.clear();
+        directory.delete();
+    }
+    
+    @Benchmark
+    public void append() throws IOException {
+        store.append(RECORD);
+    }
+    
+    @Benchmark
+    public ArrayDeque<String> readRecent() throws IOException {
+        return store.readRecentLines(MAX_LOGS);
+    }
+    
+    @Benchmark
+    public String loadState() throws IOException {
+        return store.load();
+    }
+}
@@ -0,0 +1,158 @@
+package com.nomor.memoryclear.benchmark;
+
+import com.nomor.memoryclear.AppInfo;
+import com.nomor.memoryclear.DetectionEngine;
+import com.nomor.memoryclear.DetectionSnapshot;
+import com.nomor.memoryclear.DetectionSource;
+import com.nomor.memoryclear.RunningAppDetector;
+import com.nomor.memoryclear.SyntheticDetectionSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Full running-app detection over a generated device, or over a recorded snapshot scaled up
+ * to packageCount when -Ddetection.snapshot is set. Setup checks the detector against the
+ * straightforward nested-loop detection it replaced, so a wrong result fails the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RunningAppDetectorBenchmark {
+    
+    private static final long NOW = 1700000000000L;
+    
+    @Param({"1000", "10000"})
+    public int packageCount;
+    
+    @Param({"false", "true"})
+    public boolean postForceStopRefresh;
+    
+    private SyntheticDetectionSource source;
+    private Set<String> whitelist;
+    
+    @Setup
+    public void setUp() throws IOException {
+        String snapshot = System.getProperty("detection.snapshot", "");
+        if (snapshot.isEmpty()) {
+            source = SyntheticDetectionSource.generate(packageCount, 42, NOW);
+        } else {
+            SyntheticDetectionSource recorded = readSnapshot(snapshot);
+            int factor = Math.max(1, packageCount / Math.max(1, recorded.getInstalledPackages().size()));
+            source = recorded.scaled(factor);
+        }
+        
+        List<String> installed = source.getInstalledPackages();
+        whitelist = new HashSet<>(installed.subList(0, installed.size() / 20));
+        
+        List<AppInfo> expected = referenceDetect();
+        List<AppInfo> actual = detect();
+        if (!packagesOf(expected).equals(packagesOf(actual))) {
+            throw new IllegalStateException("Detector found " + actual.size() + " apps, reference found " + expected.size());
+        }
+    }
+    
+    private static SyntheticDetectionSource readSnapshot(String path) throws IOException {
+        InputStream in = new FileInputStream(path);
+        if (path.endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return DetectionSnapshot.read(reader);
+        }
+    }
+    
+    private static List<String> packagesOf(List<AppInfo> apps) {
+        List<String> packages = new ArrayList<>(apps.size());
+        for (AppInfo app : apps) {
+            packages.add(app.packageName);
+        }
+        Collections.sort(packages);
+        return packages;
+    }
+    
+    @Benchmark
+    public List<AppInfo> detect() {
+        return new RunningAppDetector(source).detect(whitelist, postForceStopRefresh);
+    }
+    
+    /**
+     * Detection as AppManager did it before RunningAppDetector: the recent-activity strategy
+     * scans every usage record for every installed package
+     */
+    @Benchmark
+    public List<AppInfo> referenceDetect() {
+        DetectionEngine engine = new DetectionEngine(whitelist, new DetectionEngine.LabelResolver() {
+            @Override
+            public String resolveLabel(String packageName) {
+                return source.getLabel(packageName);
+            }
+        });
+        long now = source.currentTimeMillis();
+        
+        long startTime = now - (postForceStopRefresh ? 2 : 10) * 60 * 1000;
+        for (DetectionSource.UsageRecord usage : source.queryUsage(startTime, now)) {
+            boolean isActive = postForceStopRefresh
+                ? usage.lastTimeUsed > now - 2 * 60 * 1000 || usage.lastTimeVisible > now - 2 * 60 * 1000
+                : usage.lastTimeUsed > startTime || usage.totalTimeInForeground > 0;
+            if (isActive) {
+                engine.offer(usage.packageName);
+            }
+        }
+        
+        for (DetectionSource.ProcessRecord process : source.getRunningProcesses()) {
+            if (source.getSdkInt() >= 29 && process.importance > DetectionSource.ProcessRecord.IMPORTANCE_VISIBLE) {
+                continue;
+            }
+            for (String packageName : process.packages) {
+                engine.offer(packageName);
+            }
+        }
+        
+        if (source.getSdkInt() >= 29) {
+            long recentTime = now - (postForceStopRefresh ? 1 : 5) * 60 * 1000;
+            List<DetectionSource.UsageRecord> recentStats = source.queryUsage(recentTime, now);
+            for (String packageName : source.getInstalledPackages()) {
+                if (engine.contains(packageName) || engine.isExcluded(packageName)) {
+                    continue;
+                }
+                for (DetectionSource.UsageRecord stats : recentStats) {
+                    if (stats.packageName.equals(packageName)) {
+                        boolean hasRecentActivity = postForceStopRefresh
+                            ? stats.lastTimeUsed > recentTime && stats.lastTimeVisible > recentTime
+                            : stats.lastTimeUsed > recentTime || stats.lastTimeVisible > recentTime;
+                        if (hasRecentActivity) {
+                            engine.offer(packageName);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        
+        for (String packageName : source.getRunningServicePackages()) {
+            engine.offer(packageName);
+        }
+        return engine.getApps();
+    }
+}
@@ -0,0 +1,47 @@
+package com.nomor.memoryclear.benchmark;
+
+import com.nomor.memoryclear.AppInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic fake package names and labels, shaped like a real device's mix of
+ * vendor, system and user apps
+ */
+final class SyntheticApps {
+    
+    private static final String[] VENDORS = {"com.google.android", "com.android", "com.samsung.android",
+        "com.whatsapp", "org.mozilla", "com.spotify", "com.example", "net.openvpn", "com.nomor"};
+    private static final String[] WORDS = {"Music", "Camera", "Maps", "Notes", "Café", "Wallet", "Photos",
+        "Chat", "Mail", "Weather", "Fitness", "News", "Reader", "Player", "Studio", "Señal", "Games"};
+    
+    private SyntheticApps() {
+    }
+    
+    static List<String> packageNames(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> packages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String vendor = VENDORS[random.nextInt(VENDORS.length)];
+            String word = WORDS[random.nextInt(WORDS.length)].toLowerCase();
+            packages.add(vendor + "." + word + i);
+        }
+        return packages;
+    }
+    
+    static String labelFor(String packageName) {
+        int lastDot = packageName.lastIndexOf('.');
+        String name = packageName.substring(lastDot + 1);
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+    
+    static List<AppInfo> apps(int count, long seed) {
+        List<AppInfo> apps = new ArrayList<>(count);
+        for (String packageName : packageNames(count, seed)) {
+            apps.add(new AppInfo(packageName, labelFor(packageName)));
+        }
+        return apps;
+    }
+}
@@ -0,0 +1,57 @@
+package com.nomor.memoryclear.benchmark;
+
+import com.nomor.memoryclear.WhitelistSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whitelist checks AppPreferences serves to detection and list binding, and the
+ * copy-on-write cost of a batch update
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WhitelistSnapshotBenchmark {
+    
+    @Param({"10", "200", "2000"})
+    public int whitelistSize;
+    
+    private WhitelistSnapshot snapshot;
+    private List<String> lookups;
+    private List<String> additions;
+    
+    @Setup
+    public void setUp() {
+        List<String> packages = SyntheticApps.packageNames(whitelistSize * 2, 7);
+        snapshot = WhitelistSnapshot.of(packages.subList(0, whitelistSize));
+        lookups = SyntheticApps.packageNames(1000, 7);
+        additions = packages.subList(whitelistSize, Math.min(packages.size(), whitelistSize + 20));
+    }
+    
+    @Benchmark
+    public int checkThousandPackages() {
+        int whitelisted = 0;
+        for (String packageName : lookups) {
+            if (snapshot.contains(packageName)) {
+                whitelisted++;
+            }
+        }
+        return whitelisted;
+    }
+    
+    @Benchmark
+    public WhitelistSnapshot batchUpdate() {
+        return snapshot.with(additions, Collections.<String>emptyList());
+    }
+}
@@ -1,19 +1,30 @@
 package com.nomor.memoryclear;
 
-import android.graphics.drawable.Drawable;
+import java.util.Comparator;
 
+/**
+ * A listed app. Icons are not held here; rows load them on demand through IconLoader.
+ */
 public class AppInfo {
     public String packageName;
     public String appName;
-    public Drawable icon;
     public boolean isSelected;
     public boolean isSystem;
     public boolean isWhitelisted;
     
-    public AppInfo(String packageName, String appName, Drawable icon) {
+    /**
+     * Display order of every app list: by name, ignoring case
+     */
+    public static final Comparator<AppInfo> NAME_ORDER = new Comparator<AppInfo>() {
+        @Override
+        public int compare(AppInfo a1, AppInfo a2) {
+            return a1.appName.compareToIgnoreCase(a2.appName);
+        }
+    };
+    
+    public AppInfo(String packageName, String appName) {
         this.packageName = packageName;
         this.appName = appName;
-        this.icon = icon;
         this.isSelected = true; // Default selected for force stopping
         this.isSystem = false;
         this.isWhitelisted = false;
@@ -0,0 +1,164 @@
+package com.nomor.memoryclear;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Search index over app names and package names. Each app gets one folded key (lowercase,
+ * diacritics stripped) and every trigram of it gets a posting list, so a query only checks
+ * the apps in its rarest trigram's postings. When the query extends the previous one, the
+ * search narrows from the previous matches instead.
+ *
+ * Not thread-safe: build and search it from a single thread.
+ */
+public class AppSearchIndex {
+    
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int GRAM = 3;
+    
+    private final List<AppInfo> apps = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+    
+    /**
+     * Matches for one query, in index order. Pass it back to search() to narrow from it.
+     */
+    public static class Result {
+        final String query;
+        final int[] matches;
+        final int indexSize;
+        
+        Result(String query, int[] matches, int indexSize) {
+            this.query = query;
+            this.matches = matches;
+            this.indexSize = indexSize;
+        }
+        
+        public int size() {
+            return matches.length;
+        }
+    }
+    
+    /**
+     * Growable int array for posting lists, avoiding boxed Integers
+     */
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+    
+    /**
+     * Lowercase and strip combining marks, so "Café" and "cafe" match
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+    
+    public void addAll(List<AppInfo> newApps) {
+        for (AppInfo app : newApps) {
+            add(app);
+        }
+    }
+    
+    public void add(AppInfo app) {
+        int id = apps.size();
+        String key = fold(app.appName) + '\n' + fold(app.packageName);
+        apps.add(app);
+        keys.add(key);
+        
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            String gram = key.substring(i, i + GRAM);
+            IntList posting = postings.get(gram);
+            if (posting == null) {
+                posting = new IntList();
+                postings.put(gram, posting);
+            }
+            // A gram repeated within one key is only posted once
+            if (posting.size == 0 || posting.values[posting.size - 1] != id) {
+                posting.add(id);
+            }
+        }
+    }
+    
+    public int size() {
+        return apps.size();
+    }
+    
+    /**
+     * Find apps whose name or package contains the query.
+     *
+     * @param previous the last result, or null; reused when the query only grew since then
+     */
+    public Result search(String query, Result previous) {
+        String folded = fold(query).trim();
+        int indexSize = apps.size();
+        
+        if (folded.isEmpty()) {
+            int[] all = new int[indexSize];
+            for (int i = 0; i < indexSize; i++) {
+                all[i] = i;
+            }
+            return new Result(folded, all, indexSize);
+        }
+        
+        int[] candidates;
+        int candidateCount;
+        if (previous != null && previous.indexSize == indexSize && folded.startsWith(previous.query)
+                && !previous.query.isEmpty()) {
+            // Anything matching the longer query also matched the shorter one
+            candidates = previous.matches;
+            candidateCount = previous.matches.length;
+        } else if (folded.length() >= GRAM) {
+            IntList rarest = null;
+            for (int i = 0; i + GRAM <= folded.length(); i++) {
+                IntList posting = postings.get(folded.substring(i, i + GRAM));
+                if (posting == null) {
+                    return new Result(folded, new int[0], indexSize);
+                }
+                if (rarest == null || posting.size < rarest.size) {
+                    rarest = posting;
+                }
+            }
+            candidates = rarest.values;
+            candidateCount = rarest.size;
+        } else {
+            candidates = null;
+            candidateCount = indexSize;
+        }
+        
+        int[] matches = new int[candidateCount];
+        int matchCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int id = candidates != null ? candidates[i] : i;
+            if (keys.get(id).contains(folded)) {
+                matches[matchCount++] = id;
+            }
+        }
+        return new Result(folded, Arrays.copyOf(matches, matchCount), indexSize);
+    }
+    
+    public List<AppInfo> getApps(Result result) {
+        List<AppInfo> matched = new ArrayList<>(result.matches.length);
+        for (int id : result.matches) {
+            matched.add(apps.get(id));
+        }
+        return matched;
+    }
+}
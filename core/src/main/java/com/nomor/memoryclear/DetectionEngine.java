@@ -0,0 +1,114 @@
+package com.nomor.memoryclear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the packages reported by the detection strategies into one running-apps list.
+ * Each package is filtered (critical system apps, whitelist) and labelled at most once,
+ * however many strategies report it, and the result is deduplicated by package name.
+ */
+public class DetectionEngine {
+    
+    /**
+     * Looks up an app's display label
+     */
+    public interface LabelResolver {
+        /**
+         * @return the label, or null if the package is not installed
+         */
+        String resolveLabel(String packageName);
+    }
+    
+    // Never force stopped; also matches their sub-packages (e.g. com.android.settings.intelligence)
+    private static final Set<String> CRITICAL_SYSTEM_APPS = new HashSet<>(Arrays.asList(
+        "android",
+        "com.android.systemui",
+        "com.android.launcher3",
+        "com.google.android.gms",
+        "com.nomor.memoryclear", // Our own app
+        "com.android.phone",
+        "com.android.settings",
+        "com.android.inputmethod"
+    ));
+    
+    private final Set<String> whitelist;
+    private final LabelResolver labelResolver;
+    private final Map<String, AppInfo> apps = new LinkedHashMap<>();
+    
+    // Packages already turned away, so later strategies skip the checks and label lookup
+    private final Set<String> rejected = new HashSet<>();
+    
+    public DetectionEngine(Set<String> whitelist, LabelResolver labelResolver) {
+        this.whitelist = whitelist;
+        this.labelResolver = labelResolver;
+    }
+    
+    /**
+     * True for packages that must never be stopped: the exact package or one below it
+     */
+    public static boolean isCriticalSystemApp(String packageName) {
+        if (CRITICAL_SYSTEM_APPS.contains(packageName)) {
+            return true;
+        }
+        for (int dot = packageName.indexOf('.'); dot >= 0; dot = packageName.indexOf('.', dot + 1)) {
+            if (CRITICAL_SYSTEM_APPS.contains(packageName.substring(0, dot))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Whether a package would be filtered out regardless of its activity
+     */
+    public boolean isExcluded(String packageName) {
+        return whitelist.contains(packageName) || isCriticalSystemApp(packageName);
+    }
+    
+    /**
+     * Report a package as running
+     *
+     * @return true if it was added, false if it was already listed or is filtered out
+     */
+    public boolean offer(String packageName) {
+        if (apps.containsKey(packageName) || rejected.contains(packageName)) {
+            return false;
+        }
+        if (isExcluded(packageName)) {
+            rejected.add(packageName);
+            return false;
+        }
+        
+        String label = labelResolver.resolveLabel(packageName);
+        if (label == null) {
+            rejected.add(packageName);
+            return false;
+        }
+        apps.put(packageName, new AppInfo(packageName, label));
+        return true;
+    }
+    
+    public boolean contains(String packageName) {
+        return apps.containsKey(packageName);
+    }
+    
+    public int size() {
+        return apps.size();
+    }
+    
+    /**
+     * The detected apps, sorted by name
+     */
+    public List<AppInfo> getApps() {
+        List<AppInfo> result = new ArrayList<>(apps.values());
+        Collections.sort(result, AppInfo.NAME_ORDER);
+        return result;
+    }
+}
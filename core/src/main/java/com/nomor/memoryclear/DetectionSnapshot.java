@@ -0,0 +1,113 @@
+package com.nomor.memoryclear;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Records what a DetectionSource reports into a line-based text file and reads it back as a
+ * SyntheticDetectionSource, so a real device's state can be replayed off-device.
+ *
+ * <pre>
+ * time &lt;currentTimeMillis&gt;
+ * sdk &lt;sdkInt&gt;
+ * app &lt;package&gt;\t&lt;label&gt;
+ * usage &lt;package&gt;\t&lt;lastTimeUsed&gt;\t&lt;lastTimeVisible&gt;\t&lt;totalTimeInForeground&gt;
+ * process &lt;importance&gt;\t&lt;package&gt;[,&lt;package&gt;...]
+ * service &lt;package&gt;
+ * </pre>
+ *
+ * Unknown lines are skipped, so older readers accept newer files.
+ */
+public final class DetectionSnapshot {
+    
+    private DetectionSnapshot() {
+    }
+    
+    /**
+     * Write the source's current state, with usage covering the last windowMs
+     */
+    public static void write(DetectionSource source, long windowMs, Writer out) throws IOException {
+        long now = source.currentTimeMillis();
+        out.write("time " + now + "\n");
+        out.write("sdk " + source.getSdkInt() + "\n");
+        
+        for (String packageName : source.getInstalledPackages()) {
+            String label = source.getLabel(packageName);
+            out.write("app " + packageName + "\t" + clean(label != null ? label : packageName) + "\n");
+        }
+        for (DetectionSource.UsageRecord record : source.queryUsage(now - windowMs, now)) {
+            out.write("usage " + record.packageName + "\t" + record.lastTimeUsed + "\t"
+                + record.lastTimeVisible + "\t" + record.totalTimeInForeground + "\n");
+        }
+        for (DetectionSource.ProcessRecord process : source.getRunningProcesses()) {
+            StringBuilder line = new StringBuilder("process ").append(process.importance).append('\t');
+            for (int i = 0; i < process.packages.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(process.packages[i]);
+            }
+            out.write(line.append('\n').toString());
+        }
+        for (String packageName : source.getRunningServicePackages()) {
+            out.write("service " + packageName + "\n");
+        }
+        out.flush();
+    }
+    
+    /**
+     * @throws IOException if the snapshot is malformed
+     */
+    public static SyntheticDetectionSource read(Reader in) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        SyntheticDetectionSource source = new SyntheticDetectionSource(System.currentTimeMillis());
+        
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int space = line.indexOf(' ');
+            if (space < 0) {
+                continue;
+            }
+            String type = line.substring(0, space);
+            String[] fields = line.substring(space + 1).split("\t", -1);
+            
+            try {
+                switch (type) {
+                    case "time":
+                        source.setCurrentTimeMillis(Long.parseLong(fields[0]));
+                        break;
+                    case "sdk":
+                        source.setSdkInt(Integer.parseInt(fields[0]));
+                        break;
+                    case "app":
+                        source.addApp(fields[0], fields.length > 1 ? fields[1] : fields[0]);
+                        break;
+                    case "usage":
+                        source.addUsage(new DetectionSource.UsageRecord(fields[0],
+                            Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+                        break;
+                    case "process":
+                        source.addProcess(new DetectionSource.ProcessRecord(
+                            Integer.parseInt(fields[0]), fields[1].split(",")));
+                        break;
+                    case "service":
+                        source.addService(fields[0]);
+                        break;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Malformed snapshot line " + lineNumber + ": " + line, e);
+            }
+        }
+        return source;
+    }
+    
+    private static String clean(String label) {
+        return label.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,64 @@
+package com.nomor.memoryclear;
+
+import java.util.List;
+
+/**
+ * Everything running-app detection reads from the platform. The app implements it over
+ * PackageManager, ActivityManager and UsageStatsManager; SyntheticDetectionSource replays
+ * recorded or generated device state on a plain JVM.
+ */
+public interface DetectionSource {
+    
+    /**
+     * One app's usage over a queried window
+     */
+    class UsageRecord {
+        public final String packageName;
+        public final long lastTimeUsed;
+        public final long lastTimeVisible; // 0 below API 29
+        public final long totalTimeInForeground;
+        
+        public UsageRecord(String packageName, long lastTimeUsed, long lastTimeVisible, long totalTimeInForeground) {
+            this.packageName = packageName;
+            this.lastTimeUsed = lastTimeUsed;
+            this.lastTimeVisible = lastTimeVisible;
+            this.totalTimeInForeground = totalTimeInForeground;
+        }
+    }
+    
+    /**
+     * One running process and the packages loaded in it
+     */
+    class ProcessRecord {
+        // ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE
+        public static final int IMPORTANCE_VISIBLE = 200;
+        
+        public final int importance;
+        public final String[] packages;
+        
+        public ProcessRecord(int importance, String[] packages) {
+            this.importance = importance;
+            this.packages = packages;
+        }
+    }
+    
+    int getSdkInt();
+    
+    long currentTimeMillis();
+    
+    List<String> getInstalledPackages();
+    
+    /**
+     * @return the label, or null if the package is not installed
+     */
+    String getLabel(String packageName);
+    
+    List<UsageRecord> queryUsage(long startTime, long endTime);
+    
+    List<ProcessRecord> getRunningProcesses();
+    
+    /**
+     * Package of every running service, one entry per service
+     */
+    List<String> getRunningServicePackages();
+}
@@ -0,0 +1,170 @@
+package com.nomor.memoryclear;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * Line-per-record log storage: appends go to the current file, which rolls over to a single
+ * older file once it holds maxRecordsPerFile lines. Old lines are never rewritten.
+ *
+ * Not thread-safe; ErrorLogger confines it to its writer thread.
+ */
+public class LogFileStore {
+    
+    private final File logFile;
+    private final File rolledLogFile;
+    private final int maxRecordsPerFile;
+    
+    private int logFileRecords;
+    private int rolledLogFileRecords;
+    
+    public LogFileStore(File logFile, File rolledLogFile, int maxRecordsPerFile) {
+        this.logFile = logFile;
+        this.rolledLogFile = rolledLogFile;
+        this.maxRecordsPerFile = maxRecordsPerFile;
+    }
+    
+    /**
+     * Count the stored lines of both files
+     *
+     * @return the newest stored line, or null if there is none
+     */
+    public String load() throws IOException {
+        String lastLine = null;
+        
+        rolledLogFileRecords = 0;
+        try (BufferedReader reader = openReader(rolledLogFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rolledLogFileRecords++;
+                lastLine = line;
+            }
+        } catch (FileNotFoundException e) {
+            // No rolled file yet
+        }
+        
+        logFileRecords = 0;
+        try (BufferedReader reader = openReader(logFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logFileRecords++;
+                lastLine = line;
+            }
+        } catch (FileNotFoundException e) {
+            // No log file yet
+        }
+        
+        return lastLine;
+    }
+    
+    public void append(String line) throws IOException {
+        if (logFileRecords >= maxRecordsPerFile) {
+            roll();
+        }
+        
+        try (Writer writer = openAppendWriter()) {
+            writer.write(line);
+            writer.write('\n');
+        }
+        logFileRecords++;
+    }
+    
+    /**
+     * Append several lines in one open, e.g. when importing records from older storage
+     */
+    public void appendAll(Iterable<String> lines) throws IOException {
+        try (Writer writer = openAppendWriter()) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+                logFileRecords++;
+            }
+        }
+    }
+    
+    private void roll() {
+        rolledLogFile.delete();
+        if (logFile.renameTo(rolledLogFile)) {
+            rolledLogFileRecords = logFileRecords;
+        } else {
+            logFile.delete();
+            rolledLogFileRecords = 0;
+        }
+        logFileRecords = 0;
+    }
+    
+    /**
+     * The last maxLines lines across both files, oldest first. Only those lines are kept
+     * in memory while reading.
+     */
+    public ArrayDeque<String> readRecentLines(int maxLines) throws IOException {
+        ArrayDeque<String> recentLines = new ArrayDeque<>(maxLines);
+        readRecentLines(rolledLogFile, recentLines, maxLines);
+        readRecentLines(logFile, recentLines, maxLines);
+        return recentLines;
+    }
+    
+    private void readRecentLines(File file, ArrayDeque<String> recentLines, int maxLines) throws IOException {
+        try (BufferedReader reader = openReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (recentLines.size() == maxLines) {
+                    recentLines.removeFirst();
+                }
+                recentLines.addLast(line);
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing logged to this file yet
+        }
+    }
+    
+    /**
+     * Stream every stored line, oldest first
+     */
+    public void copyTo(Writer out) throws IOException {
+        copyLines(rolledLogFile, out);
+        copyLines(logFile, out);
+    }
+    
+    private void copyLines(File file, Writer out) throws IOException {
+        try (BufferedReader reader = openReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                out.write(line);
+                out.write('\n');
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing logged to this file yet
+        }
+    }
+    
+    public int getRecordCount() {
+        return rolledLogFileRecords + logFileRecords;
+    }
+    
+    public void clear() {
+        logFile.delete();
+        rolledLogFile.delete();
+        logFileRecords = 0;
+        rolledLogFileRecords = 0;
+    }
+    
+    private Writer openAppendWriter() throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8));
+    }
+    
+    private BufferedReader openReader(File file) throws FileNotFoundException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,167 @@
+package com.nomor.memoryclear;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds running apps by combining four signals from a DetectionSource: recent usage stats,
+ * visible processes, recent activity of installed apps (Android 10+) and running services.
+ * After a force stop the usage windows shrink, so just-stopped apps drop out of the count.
+ *
+ * A strategy that throws is skipped and recorded in getFailures(); the others still run.
+ */
+public class RunningAppDetector {
+    
+    private static final int SDK_Q = 29;
+    
+    private static final long USAGE_WINDOW_MS = 10 * 60 * 1000;
+    private static final long POST_FORCE_STOP_USAGE_WINDOW_MS = 2 * 60 * 1000;
+    private static final long FORCE_STOP_DETECTION_WINDOW_MS = 2 * 60 * 1000;
+    private static final long RECENT_WINDOW_MS = 5 * 60 * 1000;
+    private static final long POST_FORCE_STOP_RECENT_WINDOW_MS = 60 * 1000;
+    
+    public static final String STRATEGY_USAGE = "usage";
+    public static final String STRATEGY_PROCESSES = "processes";
+    public static final String STRATEGY_RECENT = "recent";
+    public static final String STRATEGY_SERVICES = "services";
+    
+    private final DetectionSource source;
+    private final List<String> failedStrategies = new ArrayList<>();
+    private final List<RuntimeException> failures = new ArrayList<>();
+    
+    public RunningAppDetector(DetectionSource source) {
+        this.source = source;
+    }
+    
+    /**
+     * Detect running apps, excluding critical system apps and the whitelist, sorted by name
+     *
+     * @param postForceStopRefresh use the short windows meant for right after a force stop
+     */
+    public List<AppInfo> detect(Set<String> whitelist, boolean postForceStopRefresh) {
+        failedStrategies.clear();
+        failures.clear();
+        
+        DetectionEngine engine = new DetectionEngine(whitelist, new DetectionEngine.LabelResolver() {
+            @Override
+            public String resolveLabel(String packageName) {
+                return source.getLabel(packageName);
+            }
+        });
+        long now = source.currentTimeMillis();
+        
+        try {
+            addFromUsageStats(engine, now, postForceStopRefresh);
+        } catch (RuntimeException e) {
+            recordFailure(STRATEGY_USAGE, e);
+        }
+        
+        try {
+            addFromProcesses(engine);
+        } catch (RuntimeException e) {
+            recordFailure(STRATEGY_PROCESSES, e);
+        }
+        
+        if (source.getSdkInt() >= SDK_Q) {
+            try {
+                addFromRecentActivity(engine, now, postForceStopRefresh);
+            } catch (RuntimeException e) {
+                recordFailure(STRATEGY_RECENT, e);
+            }
+        }
+        
+        try {
+            addFromServices(engine);
+        } catch (RuntimeException e) {
+            recordFailure(STRATEGY_SERVICES, e);
+        }
+        
+        return engine.getApps();
+    }
+    
+    private void addFromUsageStats(DetectionEngine engine, long now, boolean postForceStopRefresh) {
+        long startTime = now - (postForceStopRefresh ? POST_FORCE_STOP_USAGE_WINDOW_MS : USAGE_WINDOW_MS);
+        
+        for (DetectionSource.UsageRecord usage : source.queryUsage(startTime, now)) {
+            boolean isActive;
+            if (postForceStopRefresh) {
+                // Very recent activity required after force stop
+                isActive = usage.lastTimeUsed > now - FORCE_STOP_DETECTION_WINDOW_MS
+                    || usage.lastTimeVisible > now - FORCE_STOP_DETECTION_WINDOW_MS;
+            } else {
+                isActive = usage.lastTimeUsed > startTime || usage.totalTimeInForeground > 0;
+            }
+            
+            if (isActive) {
+                engine.offer(usage.packageName);
+            }
+        }
+    }
+    
+    private void addFromProcesses(DetectionEngine engine) {
+        boolean visibleOnly = source.getSdkInt() >= SDK_Q;
+        
+        for (DetectionSource.ProcessRecord process : source.getRunningProcesses()) {
+            // Newer Android only reports our own processes below visible anyway
+            if (visibleOnly && process.importance > DetectionSource.ProcessRecord.IMPORTANCE_VISIBLE) {
+                continue;
+            }
+            for (String packageName : process.packages) {
+                engine.offer(packageName);
+            }
+        }
+    }
+    
+    private void addFromRecentActivity(DetectionEngine engine, long now, boolean postForceStopRefresh) {
+        long recentTime = now - (postForceStopRefresh ? POST_FORCE_STOP_RECENT_WINDOW_MS : RECENT_WINDOW_MS);
+        
+        // One pass over the stats, then one over the installed packages, instead of scanning
+        // every stats entry for every installed package
+        Set<String> recentlyActive = new HashSet<>();
+        for (DetectionSource.UsageRecord usage : source.queryUsage(recentTime, now)) {
+            boolean hasRecentActivity;
+            if (postForceStopRefresh) {
+                // Stricter criteria after force stop
+                hasRecentActivity = usage.lastTimeUsed > recentTime && usage.lastTimeVisible > recentTime;
+            } else {
+                hasRecentActivity = usage.lastTimeUsed > recentTime || usage.lastTimeVisible > recentTime;
+            }
+            if (hasRecentActivity) {
+                recentlyActive.add(usage.packageName);
+            }
+        }
+        if (recentlyActive.isEmpty()) {
+            return;
+        }
+        
+        for (String packageName : source.getInstalledPackages()) {
+            if (recentlyActive.contains(packageName)) {
+                engine.offer(packageName);
+            }
+        }
+    }
+    
+    private void addFromServices(DetectionEngine engine) {
+        for (String packageName : source.getRunningServicePackages()) {
+            engine.offer(packageName);
+        }
+    }
+    
+    private void recordFailure(String strategy, RuntimeException e) {
+        failedStrategies.add(strategy);
+        failures.add(e);
+    }
+    
+    /**
+     * Strategies that threw during the last detect(), matching getFailures() by index
+     */
+    public List<String> getFailedStrategies() {
+        return failedStrategies;
+    }
+    
+    public List<RuntimeException> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,170 @@
+package com.nomor.memoryclear;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * In-memory DetectionSource for running detection on a plain JVM. Filled from a recorded
+ * device snapshot (DetectionSnapshot.read), generated at any size, or scaled up from either.
+ *
+ * queryUsage() filters the recorded usage by lastTimeUsed within the window, the way
+ * UsageStatsManager buckets do; everything else is returned as recorded.
+ */
+public class SyntheticDetectionSource implements DetectionSource {
+    
+    private int sdkInt = 29;
+    private long currentTime;
+    private final Map<String, String> labels = new HashMap<>();
+    private final List<String> installed = new ArrayList<>();
+    private final List<UsageRecord> usage = new ArrayList<>();
+    private final List<ProcessRecord> processes = new ArrayList<>();
+    private final List<String> services = new ArrayList<>();
+    
+    public SyntheticDetectionSource(long currentTime) {
+        this.currentTime = currentTime;
+    }
+    
+    /**
+     * Generate a device with count installed apps. Roughly a tenth were used in the last
+     * ten minutes, a twentieth have visible processes and a twentieth run services.
+     */
+    public static SyntheticDetectionSource generate(int count, long seed, long now) {
+        SyntheticDetectionSource source = new SyntheticDetectionSource(now);
+        Random random = new Random(seed);
+        
+        for (int i = 0; i < count; i++) {
+            String packageName = "com.vendor" + random.nextInt(Math.max(1, count / 8)) + ".app" + i;
+            source.addApp(packageName, "App " + Integer.toString(random.nextInt(1 << 20), 36) + " " + i);
+            
+            // Everything has an older usage bucket; only some of it is recent
+            long lastUsed = random.nextInt(10) == 0
+                ? now - random.nextInt(10 * 60 * 1000)
+                : now - 10 * 60 * 1000 - random.nextInt(24 * 60 * 60 * 1000);
+            long lastVisible = random.nextBoolean() ? lastUsed : 0;
+            long foreground = random.nextInt(4) == 0 ? random.nextInt(60 * 60 * 1000) : 0;
+            source.addUsage(new UsageRecord(packageName, lastUsed, lastVisible, foreground));
+            
+            if (random.nextInt(20) == 0) {
+                int importance = random.nextBoolean() ? 100 : 300;
+                source.addProcess(new ProcessRecord(importance, new String[]{packageName}));
+            }
+            if (random.nextInt(20) == 0) {
+                source.addService(packageName);
+            }
+        }
+        
+        // A few platform packages that detection must always leave out
+        String[] system = {"android", "com.android.systemui", "com.google.android.gms", "com.android.phone"};
+        for (String packageName : system) {
+            source.addApp(packageName, packageName);
+            source.addUsage(new UsageRecord(packageName, now - 1000, now - 1000, 1000));
+            source.addService(packageName);
+        }
+        return source;
+    }
+    
+    /**
+     * Copy of this source with every package repeated factor times under a suffixed name,
+     * so a recorded snapshot can be replayed at a larger scale with the same shape
+     */
+    public SyntheticDetectionSource scaled(int factor) {
+        SyntheticDetectionSource copy = new SyntheticDetectionSource(currentTime);
+        copy.sdkInt = sdkInt;
+        for (int n = 0; n < factor; n++) {
+            for (String packageName : installed) {
+                copy.addApp(rename(packageName, n), labels.get(packageName));
+            }
+            for (UsageRecord record : usage) {
+                copy.addUsage(new UsageRecord(rename(record.packageName, n),
+                    record.lastTimeUsed, record.lastTimeVisible, record.totalTimeInForeground));
+            }
+            for (ProcessRecord process : processes) {
+                String[] packages = new String[process.packages.length];
+                for (int i = 0; i < packages.length; i++) {
+                    packages[i] = rename(process.packages[i], n);
+                }
+                copy.addProcess(new ProcessRecord(process.importance, packages));
+            }
+            for (String packageName : services) {
+                copy.addService(rename(packageName, n));
+            }
+        }
+        return copy;
+    }
+    
+    private static String rename(String packageName, int copy) {
+        // Copy 0 keeps the original name, so critical system packages stay recognisable
+        return copy == 0 ? packageName : packageName + ".copy" + copy;
+    }
+    
+    public void setSdkInt(int sdkInt) {
+        this.sdkInt = sdkInt;
+    }
+    
+    public void setCurrentTimeMillis(long currentTime) {
+        this.currentTime = currentTime;
+    }
+    
+    public void addApp(String packageName, String label) {
+        if (labels.put(packageName, label) == null) {
+            installed.add(packageName);
+        }
+    }
+    
+    public void addUsage(UsageRecord record) {
+        usage.add(record);
+    }
+    
+    public void addProcess(ProcessRecord process) {
+        processes.add(process);
+    }
+    
+    public void addService(String packageName) {
+        services.add(packageName);
+    }
+    
+    @Override
+    public int getSdkInt() {
+        return sdkInt;
+    }
+    
+    @Override
+    public long currentTimeMillis() {
+        return currentTime;
+    }
+    
+    @Override
+    public List<String> getInstalledPackages() {
+        return Collections.unmodifiableList(installed);
+    }
+    
+    @Override
+    public String getLabel(String packageName) {
+        return labels.get(packageName);
+    }
+    
+    @Override
+    public List<UsageRecord> queryUsage(long startTime, long endTime) {
+        List<UsageRecord> result = new ArrayList<>();
+        for (UsageRecord record : usage) {
+            if (record.lastTimeUsed >= startTime && record.lastTimeUsed <= endTime) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<ProcessRecord> getRunningProcesses() {
+        return Collections.unmodifiableList(processes);
+    }
+    
+    @Override
+    public List<String> getRunningServicePackages() {
+        return Collections.unmodifiableList(services);
+    }
+}
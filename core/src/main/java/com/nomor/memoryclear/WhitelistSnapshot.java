@@ -0,0 +1,52 @@
+package com.nomor.memoryclear;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of whitelisted packages. Updates return a new snapshot, so readers on
+ * any thread can hold one without locking while a writer swaps in the next.
+ */
+public final class WhitelistSnapshot {
+    
+    public static final WhitelistSnapshot EMPTY = new WhitelistSnapshot(Collections.<String>emptySet());
+    
+    private final Set<String> packages;
+    
+    private WhitelistSnapshot(Set<String> packages) {
+        this.packages = packages;
+    }
+    
+    public static WhitelistSnapshot of(Collection<String> packages) {
+        return packages.isEmpty() ? EMPTY : new WhitelistSnapshot(Collections.unmodifiableSet(new HashSet<>(packages)));
+    }
+    
+    public boolean contains(String packageName) {
+        return packages.contains(packageName);
+    }
+    
+    /**
+     * Unmodifiable view of the packages
+     */
+    public Set<String> asSet() {
+        return packages;
+    }
+    
+    public int size() {
+        return packages.size();
+    }
+    
+    /**
+     * Apply additions and removals in one copy. Removals win over additions.
+     *
+     * @return the new snapshot, or this one if nothing changed
+     */
+    public WhitelistSnapshot with(Collection<String> toAdd, Collection<String> toRemove) {
+        Set<String> updated = new HashSet<>(packages);
+        boolean changed = updated.addAll(toAdd);
+        changed |= updated.removeAll(toRemove);
+        return changed ? new WhitelistSnapshot(Collections.unmodifiableSet(updated)) : this;
+    }
+}
@@ -0,0 +1,131 @@
+package com.nomor.memoryclear;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class AppSearchIndexTest {
+    
+    private static final String[] WORDS = {
+        "Café", "Crème", "Música", "Mail", "Maps", "Weather", "Wallet", "Über", "Niño", "Photos",
+        "Calendar", "Calculator", "Notes", "Clock", "Chrome", "Camera", "Ñandú", "Zoë", "Søk", "Résumé"
+    };
+    
+    private final List<AppInfo> apps = new ArrayList<>();
+    private AppSearchIndex index;
+    
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            apps.add(new AppInfo("com.vendor" + random.nextInt(20) + ".app" + i, name));
+        }
+        index = new AppSearchIndex();
+        index.addAll(apps);
+    }
+    
+    /**
+     * What the index must agree with: a plain scan of every app
+     */
+    private static List<AppInfo> naiveSearch(List<AppInfo> apps, String query) {
+        String folded = AppSearchIndex.fold(query).trim();
+        List<AppInfo> matched = new ArrayList<>();
+        for (AppInfo app : apps) {
+            if (AppSearchIndex.fold(app.appName).contains(folded)
+                    || AppSearchIndex.fold(app.packageName).contains(folded)) {
+                matched.add(app);
+            }
+        }
+        return matched;
+    }
+    
+    private void assertMatchesNaive(String query, AppSearchIndex.Result previous) {
+        AppSearchIndex.Result result = index.search(query, previous);
+        assertEquals("query \"" + query + "\"", naiveSearch(apps, query), index.getApps(result));
+    }
+    
+    @Test
+    public void foldStripsDiacriticsAndCase() {
+        assertEquals("cafe", AppSearchIndex.fold("Café"));
+        assertEquals("ubermusica", AppSearchIndex.fold("ÜberMúsica"));
+        assertEquals("nandu", AppSearchIndex.fold("Ñandú"));
+        assertEquals("", AppSearchIndex.fold(null));
+    }
+    
+    @Test
+    public void diacriticsMatchEitherWay() {
+        for (String query : new String[]{"cafe", "Café", "CAFÉ", "resume", "résumé", "uber", "über", "zoe", "nino"}) {
+            AppSearchIndex.Result result = index.search(query, null);
+            assertTrue(query, result.size() > 0);
+            assertMatchesNaive(query, null);
+        }
+    }
+    
+    @Test
+    public void shortQueriesScanEverything() {
+        for (String query : new String[]{"", " ", "c", "é", "ma", "Ma", "o ", ".", "p1"}) {
+            assertMatchesNaive(query, null);
+        }
+        assertEquals(apps.size(), index.search("", null).size());
+    }
+    
+    @Test
+    public void packageNamesAreSearched() {
+        assertMatchesNaive("vendor7", null);
+        assertMatchesNaive("app12", null);
+        assertEquals(1, index.search("app299", null).size());
+    }
+    
+    @Test
+    public void unknownTrigramMatchesNothing() {
+        assertEquals(0, index.search("xyzzy", null).size());
+    }
+    
+    @Test
+    public void narrowingFromPreviousMatchesFreshSearch() {
+        String[] typed = {"calc", "ca", "résumé cl", "com.vendor1", "mu", "maps w"};
+        for (String text : typed) {
+            AppSearchIndex.Result previous = null;
+            for (int length = 1; length <= text.length(); length++) {
+                String query = text.substring(0, length);
+                AppSearchIndex.Result result = index.search(query, previous);
+                assertEquals("query \"" + query + "\"", naiveSearch(apps, query), index.getApps(result));
+                previous = result;
+            }
+        }
+    }
+    
+    @Test
+    public void previousIsIgnoredWhenQueryDoesNotExtendIt() {
+        AppSearchIndex.Result previous = index.search("camera", null);
+        assertMatchesNaive("cam", previous);
+        assertMatchesNaive("clock", previous);
+        assertMatchesNaive("", previous);
+    }
+    
+    @Test
+    public void appendedAppsAreFoundAfterNarrowing() {
+        AppSearchIndex.Result previous = index.search("sa", null);
+        
+        AppInfo added = new AppInfo("org.example.saturn", "Saturn Café");
+        apps.add(added);
+        index.add(added);
+        
+        // The previous result predates the new app, so it must not be narrowed from
+        AppSearchIndex.Result result = index.search("satu", previous);
+        assertEquals(Arrays.asList(added), index.getApps(result));
+        assertMatchesNaive("sat", previous);
+        assertMatchesNaive("cafe", null);
+        
+        // Narrowing works again from results taken after the append
+        assertMatchesNaive("saturn", result);
+    }
+}
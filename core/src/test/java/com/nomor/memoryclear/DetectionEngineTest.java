@@ -0,0 +1,93 @@
+package com.nomor.memoryclear;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class DetectionEngineTest {
+    
+    private final Map<String, String> labels = new HashMap<>();
+    private int lookups;
+    
+    private final DetectionEngine.LabelResolver resolver = new DetectionEngine.LabelResolver() {
+        @Override
+        public String resolveLabel(String packageName) {
+            lookups++;
+            return labels.get(packageName);
+        }
+    };
+    
+    @Test
+    public void criticalSystemAppsIncludeSubPackages() {
+        assertTrue(DetectionEngine.isCriticalSystemApp("android"));
+        assertTrue(DetectionEngine.isCriticalSystemApp("com.android.systemui"));
+        assertTrue(DetectionEngine.isCriticalSystemApp("com.android.settings.intelligence"));
+        assertTrue(DetectionEngine.isCriticalSystemApp("com.google.android.gms.persistent"));
+        assertTrue(DetectionEngine.isCriticalSystemApp("com.nomor.memoryclear"));
+    }
+    
+    @Test
+    public void criticalSystemAppsMatchWholeSegmentsOnly() {
+        assertFalse(DetectionEngine.isCriticalSystemApp("com.android.settingsx"));
+        assertFalse(DetectionEngine.isCriticalSystemApp("com.android"));
+        assertFalse(DetectionEngine.isCriticalSystemApp("androidx.app"));
+        assertFalse(DetectionEngine.isCriticalSystemApp("com.example.android"));
+        assertFalse(DetectionEngine.isCriticalSystemApp("com.google.android.youtube"));
+    }
+    
+    @Test
+    public void offerDeduplicatesAndLabelsOnce() {
+        labels.put("com.example.mail", "Mail");
+        DetectionEngine engine = new DetectionEngine(Collections.<String>emptySet(), resolver);
+        
+        assertTrue(engine.offer("com.example.mail"));
+        assertFalse(engine.offer("com.example.mail"));
+        assertFalse(engine.offer("com.example.mail"));
+        
+        assertEquals(1, engine.size());
+        assertEquals(1, lookups);
+    }
+    
+    @Test
+    public void offerRejectsWhitelistedCriticalAndUninstalled() {
+        labels.put("com.example.kept", "Kept");
+        labels.put("com.android.systemui", "System UI");
+        DetectionEngine engine = new DetectionEngine(new HashSet<>(Arrays.asList("com.example.kept")), resolver);
+        
+        assertFalse(engine.offer("com.example.kept"));
+        assertFalse(engine.offer("com.android.systemui"));
+        assertFalse(engine.offer("com.example.gone"));
+        assertFalse(engine.offer("com.example.gone"));
+        
+        assertEquals(0, engine.size());
+        assertTrue(engine.isExcluded("com.example.kept"));
+        assertTrue(engine.isExcluded("com.android.systemui"));
+        // Whitelisted and critical packages are never looked up; the uninstalled one only once
+        assertEquals(1, lookups);
+    }
+    
+    @Test
+    public void appsAreSortedByNameIgnoringCase() {
+        labels.put("a.zeta", "zeta");
+        labels.put("a.alpha", "Alpha");
+        labels.put("a.beta", "beta");
+        DetectionEngine engine = new DetectionEngine(Collections.<String>emptySet(), resolver);
+        engine.offer("a.zeta");
+        engine.offer("a.alpha");
+        engine.offer("a.beta");
+        
+        List<AppInfo> apps = engine.getApps();
+        assertEquals("Alpha", apps.get(0).appName);
+        assertEquals("beta", apps.get(1).appName);
+        assertEquals("zeta", apps.get(2).appName);
+    }
+}
@@ -0,0 +1,180 @@
+package com.nomor.memoryclear;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class DetectionSnapshotTest {
+    
+    private static final long NOW = 1700000000000L;
+    
+    // Wide enough to include every usage record the generator makes
+    private static final long WINDOW_MS = 2 * 24 * 60 * 60 * 1000L;
+    
+    private static String write(DetectionSource source) throws IOException {
+        StringWriter out = new StringWriter();
+        DetectionSnapshot.write(source, WINDOW_MS, out);
+        return out.toString();
+    }
+    
+    @Test
+    public void roundTripKeepsEverything() throws IOException {
+        SyntheticDetectionSource original = SyntheticDetectionSource.generate(300, 7, NOW);
+        original.setSdkInt(28);
+        
+        SyntheticDetectionSource restored = DetectionSnapshot.read(new StringReader(write(original)));
+        
+        assertEquals(NOW, restored.currentTimeMillis());
+        assertEquals(28, restored.getSdkInt());
+        assertEquals(original.getInstalledPackages(), restored.getInstalledPackages());
+        for (String packageName : original.getInstalledPackages()) {
+            assertEquals(original.getLabel(packageName), restored.getLabel(packageName));
+        }
+        
+        List<DetectionSource.UsageRecord> usage = original.queryUsage(NOW - WINDOW_MS, NOW);
+        List<DetectionSource.UsageRecord> restoredUsage = restored.queryUsage(NOW - WINDOW_MS, NOW);
+        assertEquals(usage.size(), restoredUsage.size());
+        for (int i = 0; i < usage.size(); i++) {
+            assertEquals(usage.get(i).packageName, restoredUsage.get(i).packageName);
+            assertEquals(usage.get(i).lastTimeUsed, restoredUsage.get(i).lastTimeUsed);
+            assertEquals(usage.get(i).lastTimeVisible, restoredUsage.get(i).lastTimeVisible);
+            assertEquals(usage.get(i).totalTimeInForeground, restoredUsage.get(i).totalTimeInForeground);
+        }
+        
+        List<DetectionSource.ProcessRecord> processes = original.getRunningProcesses();
+        List<DetectionSource.ProcessRecord> restoredProcesses = restored.getRunningProcesses();
+        assertEquals(processes.size(), restoredProcesses.size());
+        for (int i = 0; i < processes.size(); i++) {
+            assertEquals(processes.get(i).importance, restoredProcesses.get(i).importance);
+            assertArrayEquals(processes.get(i).packages, restoredProcesses.get(i).packages);
+        }
+        
+        assertEquals(original.getRunningServicePackages(), restored.getRunningServicePackages());
+    }
+    
+    @Test
+    public void rewritingRestoredSnapshotGivesSameText() throws IOException {
+        String text = write(SyntheticDetectionSource.generate(200, 3, NOW));
+        assertEquals(text, write(DetectionSnapshot.read(new StringReader(text))));
+    }
+    
+    @Test
+    public void restoredSourceDetectsTheSameApps() throws IOException {
+        SyntheticDetectionSource original = SyntheticDetectionSource.generate(500, 11, NOW);
+        SyntheticDetectionSource restored = DetectionSnapshot.read(new StringReader(write(original)));
+        
+        for (boolean postForceStop : new boolean[]{false, true}) {
+            assertEquals(detect(original, Collections.<String>emptySet(), postForceStop),
+                detect(restored, Collections.<String>emptySet(), postForceStop));
+        }
+    }
+    
+    @Test
+    public void processesWithSeveralPackagesAndLabelsWithTabs() throws IOException {
+        SyntheticDetectionSource source = new SyntheticDetectionSource(NOW);
+        source.addApp("com.example.a", "Tab\tLabel");
+        source.addProcess(new DetectionSource.ProcessRecord(100, new String[]{"com.example.a", "com.example.b"}));
+        
+        SyntheticDetectionSource restored = DetectionSnapshot.read(new StringReader(write(source)));
+        
+        assertEquals("Tab Label", restored.getLabel("com.example.a"));
+        assertArrayEquals(new String[]{"com.example.a", "com.example.b"},
+            restored.getRunningProcesses().get(0).packages);
+    }
+    
+    @Test
+    public void unknownLinesAreSkipped() throws IOException {
+        SyntheticDetectionSource restored = DetectionSnapshot.read(new StringReader(
+            "time 5\n# comment\nbattery 80\n\napp com.example.a\tA\n"));
+        
+        assertEquals(5, restored.currentTimeMillis());
+        assertEquals(1, restored.getInstalledPackages().size());
+    }
+    
+    @Test
+    public void malformedLineThrows() {
+        String[] malformed = {"time soon\n", "usage com.example.a\t1\t2\n", "process high\tcom.example.a\n"};
+        for (String text : malformed) {
+            try {
+                DetectionSnapshot.read(new StringReader(text));
+                fail("accepted " + text);
+            } catch (IOException expected) {
+                // Reported with the offending line
+            }
+        }
+    }
+    
+    @Test
+    public void scaledCopyZeroMatchesOriginal() {
+        SyntheticDetectionSource original = SyntheticDetectionSource.generate(400, 5, NOW);
+        SyntheticDetectionSource scaled = original.scaled(3);
+        
+        for (boolean postForceStop : new boolean[]{false, true}) {
+            Set<String> expected = detect(original, Collections.<String>emptySet(), postForceStop);
+            Set<String> copyZero = new TreeSet<>();
+            for (String packageName : detect(scaled, Collections.<String>emptySet(), postForceStop)) {
+                if (!packageName.contains(".copy")) {
+                    copyZero.add(packageName);
+                }
+            }
+            assertEquals(expected, copyZero);
+        }
+    }
+    
+    @Test
+    public void scaledDetectsEveryCopy() {
+        int factor = 4;
+        SyntheticDetectionSource original = SyntheticDetectionSource.generate(400, 9, NOW);
+        SyntheticDetectionSource scaled = original.scaled(factor);
+        
+        assertEquals(factor * original.getInstalledPackages().size(), scaled.getInstalledPackages().size());
+        for (boolean postForceStop : new boolean[]{false, true}) {
+            Set<String> detected = detect(original, Collections.<String>emptySet(), postForceStop);
+            Set<String> expected = new TreeSet<>();
+            for (int n = 0; n < factor; n++) {
+                for (String packageName : detected) {
+                    expected.add(n == 0 ? packageName : packageName + ".copy" + n);
+                }
+            }
+            assertEquals(expected, detect(scaled, Collections.<String>emptySet(), postForceStop));
+        }
+    }
+    
+    @Test
+    public void scaledKeepsCriticalCopiesExcluded() {
+        Set<String> detected = detect(SyntheticDetectionSource.generate(100, 1, NOW).scaled(3),
+            Collections.<String>emptySet(), false);
+        for (String packageName : detected) {
+            assertFalse(packageName, DetectionEngine.isCriticalSystemApp(packageName));
+        }
+        assertFalse(detected.contains("android.copy2"));
+    }
+    
+    @Test
+    public void scaledMatchesReference() {
+        SyntheticDetectionSource scaled = SyntheticDetectionSource.generate(300, 13, NOW).scaled(5);
+        Set<String> whitelist = new HashSet<>(scaled.getInstalledPackages().subList(0, 40));
+        
+        for (boolean postForceStop : new boolean[]{false, true}) {
+            Set<String> detected = detect(scaled, whitelist, postForceStop);
+            assertFalse(detected.isEmpty());
+            assertEquals(RunningAppDetectorTest.reference(scaled, whitelist, postForceStop), detected);
+        }
+    }
+    
+    private static Set<String> detect(DetectionSource source, Set<String> whitelist, boolean postForceStop) {
+        return RunningAppDetectorTest.packagesOf(new RunningAppDetector(source).detect(whitelist, postForceStop));
+    }
+}
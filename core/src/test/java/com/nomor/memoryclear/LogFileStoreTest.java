@@ -0,0 +1,144 @@
+package com.nomor.memoryclear;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LogFileStoreTest {
+    
+    private static final int MAX_PER_FILE = 5;
+    
+    private File dir;
+    private File logFile;
+    private File rolledFile;
+    private LogFileStore store;
+    
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("logstore").toFile();
+        logFile = new File(dir, "log.ndjson");
+        rolledFile = new File(dir, "log.1.ndjson");
+        store = new LogFileStore(logFile, rolledFile, MAX_PER_FILE);
+    }
+    
+    @After
+    public void tearDown() {
+        logFile.delete();
+        rolledFile.delete();
+        dir.delete();
+    }
+    
+    private void appendRange(int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            store.append("r" + i);
+        }
+    }
+    
+    private static List<String> range(int from, int to) {
+        List<String> lines = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            lines.add("r" + i);
+        }
+        return lines;
+    }
+    
+    @Test
+    public void emptyStoreLoadsNothing() throws IOException {
+        assertNull(store.load());
+        assertEquals(0, store.getRecordCount());
+        assertTrue(store.readRecentLines(10).isEmpty());
+    }
+    
+    @Test
+    public void rollsOverOnceFileIsFull() throws IOException {
+        appendRange(0, MAX_PER_FILE);
+        assertFalse(rolledFile.exists());
+        
+        store.append("r" + MAX_PER_FILE);
+        assertTrue(rolledFile.exists());
+        assertEquals(MAX_PER_FILE + 1, store.getRecordCount());
+        assertEquals(1, Files.readAllLines(logFile.toPath()).size());
+    }
+    
+    @Test
+    public void keepsOnlyOneRolledFile() throws IOException {
+        appendRange(0, 3 * MAX_PER_FILE + 2);
+        
+        // r0..r9 were dropped with the first rolled file, r10..r14 rolled, r15..r16 current
+        assertEquals(range(10, 15), Files.readAllLines(rolledFile.toPath()));
+        assertEquals(range(15, 17), Files.readAllLines(logFile.toPath()));
+        assertEquals(MAX_PER_FILE + 2, store.getRecordCount());
+    }
+    
+    @Test
+    public void readRecentLinesSpansTheFileBoundary() throws IOException {
+        appendRange(0, MAX_PER_FILE + 2); // r0..r4 rolled, r5..r6 current
+        
+        assertEquals(range(3, 7), new ArrayList<>(store.readRecentLines(4)));
+        assertEquals(range(5, 7), new ArrayList<>(store.readRecentLines(2)));
+        assertEquals(range(4, 7), new ArrayList<>(store.readRecentLines(3)));
+        assertEquals(range(0, 7), new ArrayList<>(store.readRecentLines(100)));
+    }
+    
+    @Test
+    public void readRecentLinesRightAfterRoll() throws IOException {
+        appendRange(0, MAX_PER_FILE + 1); // current file holds exactly one line
+        
+        assertEquals(range(4, 6), new ArrayList<>(store.readRecentLines(2)));
+        assertEquals(range(5, 6), new ArrayList<>(store.readRecentLines(1)));
+    }
+    
+    @Test
+    public void loadRecountsBothFilesAndReturnsNewestLine() throws IOException {
+        appendRange(0, MAX_PER_FILE + 3);
+        
+        LogFileStore reopened = new LogFileStore(logFile, rolledFile, MAX_PER_FILE);
+        assertEquals("r7", reopened.load());
+        assertEquals(MAX_PER_FILE + 3, reopened.getRecordCount());
+        
+        // The reopened store continues filling the current file before rolling again
+        reopened.append("r8");
+        reopened.append("r9");
+        assertEquals(range(0, 5), Files.readAllLines(rolledFile.toPath()));
+        reopened.append("r10");
+        assertEquals(range(5, 10), Files.readAllLines(rolledFile.toPath()));
+    }
+    
+    @Test
+    public void copyToStreamsOldestFirst() throws IOException {
+        appendRange(0, MAX_PER_FILE + 2);
+        StringWriter out = new StringWriter();
+        store.copyTo(out);
+        
+        StringBuilder expected = new StringBuilder();
+        for (String line : range(0, MAX_PER_FILE + 2)) {
+            expected.append(line).append('\n');
+        }
+        assertEquals(expected.toString(), out.toString());
+    }
+    
+    @Test
+    public void appendAllAndClear() throws IOException {
+        store.appendAll(Arrays.asList("a", "b", "c"));
+        assertEquals(3, store.getRecordCount());
+        assertEquals(Arrays.asList("b", "c"), new ArrayList<>(store.readRecentLines(2)));
+        
+        store.clear();
+        assertEquals(0, store.getRecordCount());
+        assertFalse(logFile.exists());
+        assertTrue(store.readRecentLines(2).isEmpty());
+    }
+}
@@ -0,0 +1,182 @@
+package com.nomor.memoryclear;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class RunningAppDetectorTest {
+    
+    private static final long NOW = 1700000000000L;
+    private static final long MINUTE = 60 * 1000;
+    
+    @Test
+    public void matchesReferenceOnGeneratedDevices() {
+        for (int seed = 0; seed < 5; seed++) {
+            SyntheticDetectionSource source = SyntheticDetectionSource.generate(500, seed, NOW);
+            List<String> installed = source.getInstalledPackages();
+            Set<String> whitelist = new HashSet<>(installed.subList(0, 25));
+            
+            for (boolean postForceStop : new boolean[]{false, true}) {
+                List<AppInfo> detected = new RunningAppDetector(source).detect(whitelist, postForceStop);
+                assertEquals("seed " + seed + " postForceStop " + postForceStop,
+                    reference(source, whitelist, postForceStop), packagesOf(detected));
+                assertSortedByName(detected);
+            }
+        }
+    }
+    
+    @Test
+    public void reportsEachPackageOnceAcrossStrategies() {
+        SyntheticDetectionSource source = new SyntheticDetectionSource(NOW);
+        source.addApp("com.example.music", "Music");
+        source.addUsage(new DetectionSource.UsageRecord("com.example.music", NOW - MINUTE, NOW - MINUTE, 1000));
+        source.addProcess(new DetectionSource.ProcessRecord(100, new String[]{"com.example.music"}));
+        source.addService("com.example.music");
+        source.addService("com.example.music");
+        
+        List<AppInfo> detected = new RunningAppDetector(source).detect(Collections.<String>emptySet(), false);
+        
+        assertEquals(1, detected.size());
+        assertEquals("Music", detected.get(0).appName);
+    }
+    
+    @Test
+    public void excludesWhitelistedCriticalAndUninstalledPackages() {
+        SyntheticDetectionSource source = new SyntheticDetectionSource(NOW);
+        source.addApp("com.example.kept", "Kept");
+        source.addApp("com.example.stop", "Stop");
+        source.addApp("com.android.systemui", "System UI");
+        source.addService("com.example.kept");
+        source.addService("com.example.stop");
+        source.addService("com.android.systemui");
+        source.addService("com.example.uninstalled");
+        
+        List<AppInfo> detected = new RunningAppDetector(source)
+            .detect(new HashSet<>(Arrays.asList("com.example.kept")), false);
+        
+        assertEquals(Arrays.asList("com.example.stop"), new ArrayList<>(packagesOf(detected)));
+    }
+    
+    @Test
+    public void skipsBackgroundProcessesFromAndroid10() {
+        SyntheticDetectionSource source = new SyntheticDetectionSource(NOW);
+        source.addApp("com.example.cached", "Cached");
+        source.addProcess(new DetectionSource.ProcessRecord(400, new String[]{"com.example.cached"}));
+        
+        source.setSdkInt(29);
+        assertTrue(new RunningAppDetector(source).detect(Collections.<String>emptySet(), false).isEmpty());
+        
+        source.setSdkInt(28);
+        assertEquals(1, new RunningAppDetector(source).detect(Collections.<String>emptySet(), false).size());
+    }
+    
+    @Test
+    public void failingStrategyIsRecordedAndOthersStillRun() {
+        SyntheticDetectionSource source = new SyntheticDetectionSource(NOW) {
+            @Override
+            public List<ProcessRecord> getRunningProcesses() {
+                throw new SecurityException("denied");
+            }
+        };
+        source.addApp("com.example.sync", "Sync");
+        source.addService("com.example.sync");
+        
+        RunningAppDetector detector = new RunningAppDetector(source);
+        List<AppInfo> detected = detector.detect(Collections.<String>emptySet(), false);
+        
+        assertEquals(1, detected.size());
+        assertEquals(Arrays.asList(RunningAppDetector.STRATEGY_PROCESSES), detector.getFailedStrategies());
+        assertTrue(detector.getFailures().get(0) instanceof SecurityException);
+    }
+    
+    @Test
+    public void postForceStopUsesShorterWindows() {
+        SyntheticDetectionSource source = new SyntheticDetectionSource(NOW);
+        source.addApp("com.example.recent", "Recent");
+        source.addApp("com.example.older", "Older");
+        source.addUsage(new DetectionSource.UsageRecord("com.example.recent", NOW - 30 * 1000, NOW - 30 * 1000, 0));
+        source.addUsage(new DetectionSource.UsageRecord("com.example.older", NOW - 4 * MINUTE, NOW - 4 * MINUTE, 0));
+        
+        Set<String> normal = packagesOf(new RunningAppDetector(source).detect(Collections.<String>emptySet(), false));
+        Set<String> afterStop = packagesOf(new RunningAppDetector(source).detect(Collections.<String>emptySet(), true));
+        
+        assertTrue(normal.contains("com.example.older"));
+        assertTrue(afterStop.contains("com.example.recent"));
+        assertFalse(afterStop.contains("com.example.older"));
+    }
+    
+    /**
+     * Straightforward detection with plain sets: every strategy's candidates, minus critical,
+     * whitelisted and uninstalled packages
+     */
+    static Set<String> reference(DetectionSource source, Set<String> whitelist, boolean postForceStop) {
+        long now = source.currentTimeMillis();
+        Set<String> candidates = new HashSet<>();
+        
+        long start = now - (postForceStop ? 2 : 10) * MINUTE;
+        for (DetectionSource.UsageRecord usage : source.queryUsage(start, now)) {
+            boolean active = postForceStop
+                ? usage.lastTimeUsed > now - 2 * MINUTE || usage.lastTimeVisible > now - 2 * MINUTE
+                : usage.lastTimeUsed > start || usage.totalTimeInForeground > 0;
+            if (active) {
+                candidates.add(usage.packageName);
+            }
+        }
+        
+        for (DetectionSource.ProcessRecord process : source.getRunningProcesses()) {
+            if (source.getSdkInt() < 29 || process.importance <= DetectionSource.ProcessRecord.IMPORTANCE_VISIBLE) {
+                candidates.addAll(Arrays.asList(process.packages));
+            }
+        }
+        
+        if (source.getSdkInt() >= 29) {
+            long recent = now - (postForceStop ? 1 : 5) * MINUTE;
+            List<DetectionSource.UsageRecord> stats = source.queryUsage(recent, now);
+            for (String packageName : source.getInstalledPackages()) {
+                for (DetectionSource.UsageRecord usage : stats) {
+                    boolean active = postForceStop
+                        ? usage.lastTimeUsed > recent && usage.lastTimeVisible > recent
+                        : usage.lastTimeUsed > recent || usage.lastTimeVisible > recent;
+                    if (usage.packageName.equals(packageName) && active) {
+                        candidates.add(packageName);
+                    }
+                }
+            }
+        }
+        
+        candidates.addAll(source.getRunningServicePackages());
+        
+        Set<String> expected = new TreeSet<>();
+        for (String packageName : candidates) {
+            if (!whitelist.contains(packageName) && !DetectionEngine.isCriticalSystemApp(packageName)
+                    && source.getLabel(packageName) != null) {
+                expected.add(packageName);
+            }
+        }
+        return expected;
+    }
+    
+    static Set<String> packagesOf(List<AppInfo> apps) {
+        Set<String> packages = new TreeSet<>();
+        for (AppInfo app : apps) {
+            assertTrue("duplicate " + app.packageName, packages.add(app.packageName));
+        }
+        return packages;
+    }
+    
+    private static void assertSortedByName(List<AppInfo> apps) {
+        for (int i = 1; i < apps.size(); i++) {
+            assertTrue(AppInfo.NAME_ORDER.compare(apps.get(i - 1), apps.get(i)) <= 0);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.nomor.memoryclear;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class WhitelistSnapshotTest {
+    
+    @Test
+    public void ofEmptyIsEmpty() {
+        assertSame(WhitelistSnapshot.EMPTY, WhitelistSnapshot.of(Collections.<String>emptyList()));
+        assertFalse(WhitelistSnapshot.EMPTY.contains("com.example.a"));
+        assertEquals(0, WhitelistSnapshot.EMPTY.size());
+    }
+    
+    @Test
+    public void membership() {
+        WhitelistSnapshot snapshot = WhitelistSnapshot.of(Arrays.asList("com.example.a", "com.example.b", "com.example.a"));
+        
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.contains("com.example.a"));
+        assertTrue(snapshot.contains("com.example.b"));
+        assertFalse(snapshot.contains("com.example.c"));
+        assertFalse(snapshot.contains("com.example"));
+    }
+    
+    @Test
+    public void isNotAffectedByLaterChangesToTheSource() {
+        List<String> source = new ArrayList<>(Arrays.asList("com.example.a"));
+        WhitelistSnapshot snapshot = WhitelistSnapshot.of(source);
+        source.add("com.example.b");
+        
+        assertFalse(snapshot.contains("com.example.b"));
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void asSetIsUnmodifiable() {
+        WhitelistSnapshot.of(Arrays.asList("com.example.a")).asSet().add("com.example.b");
+    }
+    
+    @Test
+    public void withReturnsNewSnapshotAndKeepsOld() {
+        WhitelistSnapshot before = WhitelistSnapshot.of(Arrays.asList("com.example.a", "com.example.b"));
+        WhitelistSnapshot after = before.with(Arrays.asList("com.example.c"), Arrays.asList("com.example.a"));
+        
+        assertTrue(after.contains("com.example.b"));
+        assertTrue(after.contains("com.example.c"));
+        assertFalse(after.contains("com.example.a"));
+        assertTrue(before.contains("com.example.a"));
+        assertFalse(before.contains("com.example.c"));
+    }
+    
+    @Test
+    public void removalWinsOverAddition() {
+        WhitelistSnapshot after = WhitelistSnapshot.EMPTY.with(Arrays.asList("com.example.a"), Arrays.asList("com.example.a"));
+        assertFalse(after.contains("com.example.a"));
+    }
+    
+    @Test
+    public void withoutChangesReturnsSameSnapshot() {
+        WhitelistSnapshot snapshot = WhitelistSnapshot.of(Arrays.asList("com.example.a"));
+        
+        assertSame(snapshot, snapshot.with(Arrays.asList("com.example.a"), Arrays.asList("com.example.missing")));
+        assertSame(snapshot, snapshot.with(Collections.<String>emptyList(), Collections.<String>emptyList()));
+    }
+}
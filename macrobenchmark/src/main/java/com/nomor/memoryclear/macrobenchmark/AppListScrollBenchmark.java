@@ -0,0 +1,59 @@
+package com.nomor.memoryclear.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiObject2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while flinging through the installed-app list in AppSelectionDialog, the
+ * longest list AppListAdapter binds. Run on a device with a few hundred apps installed:
+ *
+ *     ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppListScrollBenchmark {
+    
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+    
+    @Test
+    public void scrollAppSelectionDialog() {
+        List<Metric> metrics = Collections.<Metric>singletonList(new FrameTimingMetric());
+        
+        benchmarkRule.measureRepeated(
+            BenchmarkUtils.TARGET_PACKAGE,
+            metrics,
+            CompilationMode.DEFAULT,
+            null,
+            5,
+            scope -> {
+                BenchmarkUtils.openAppSelectionDialog(scope);
+                return Unit.INSTANCE;
+            },
+            scope -> {
+                UiObject2 list = scope.getDevice().findObject(By.res(BenchmarkUtils.TARGET_PACKAGE, "recycler_view"));
+                // Keep clear of the gesture navigation area
+                list.setGestureMargin(scope.getDevice().getDisplayWidth() / 5);
+                for (int i = 0; i < 3; i++) {
+                    list.fling(Direction.DOWN);
+                }
+                list.fling(Direction.UP);
+                scope.getDevice().waitForIdle();
+                return Unit.INSTANCE;
+            });
+    }
+}
@@ -0,0 +1,65 @@
+package com.nomor.memoryclear.macrobenchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * UI navigation shared by the benchmarks
+ */
+final class BenchmarkUtils {
+    
+    static final String TARGET_PACKAGE = "com.nomor.memoryclear";
+    static final long UI_TIMEOUT_MS = 5000;
+    
+    // Negative buttons of the first-launch and permission dialogs MainActivity may show
+    private static final String[] DISMISS_BUTTONS = {"Later", "Not Now", "Skip for Now", "Maybe Later", "Cancel"};
+    
+    private BenchmarkUtils() {
+    }
+    
+    static void dismissStartupDialogs(UiDevice device) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            boolean dismissed = false;
+            for (String text : DISMISS_BUTTONS) {
+                UiObject2 button = device.findObject(By.text(text));
+                if (button != null) {
+                    button.click();
+                    device.waitForIdle();
+                    dismissed = true;
+                    break;
+                }
+            }
+            if (!dismissed) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Home screen to the whitelist picker dialog with its full installed-app list loaded
+     */
+    static UiObject2 openAppSelectionDialog(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        scope.pressHome();
+        scope.startActivityAndWait();
+        dismissStartupDialogs(device);
+        
+        device.findObject(By.res(TARGET_PACKAGE, "btn_whitelist")).click();
+        if (!device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "fab_add")), UI_TIMEOUT_MS)) {
+            // An interstitial ad was shown first
+            device.pressBack();
+            device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "fab_add")), UI_TIMEOUT_MS);
+        }
+        
+        device.findObject(By.res(TARGET_PACKAGE, "fab_add")).click();
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "search_edit")), UI_TIMEOUT_MS);
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "app_name")), UI_TIMEOUT_MS);
+        
+        // The picker streams apps in; its title changes back once the last batch is in
+        device.wait(Until.hasObject(By.text("Select Apps to Whitelist")), UI_TIMEOUT_MS);
+        return device.findObject(By.res(TARGET_PACKAGE, "recycler_view"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.nomor.memoryclear.macrobenchmark;
+
+import android.os.SystemClock;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing of the idle home screen, where the only thing moving is the animated ring.
+ * frameDurationCpuMs shows what each ring frame costs the UI and render threads; compare
+ * runs with battery saver on, where the ring stays still and should produce no frames:
+ *
+ *     ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class HomeRingBenchmark {
+    
+    private static final long IDLE_MS = 5000;
+    
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+    
+    @Test
+    public void idleHomeScreen() {
+        List<Metric> metrics = Collections.<Metric>singletonList(new FrameTimingMetric());
+        
+        benchmarkRule.measureRepeated(
+            BenchmarkUtils.TARGET_PACKAGE,
+            metrics,
+            CompilationMode.DEFAULT,
+            null,
+            5,
+            scope -> {
+                scope.pressHome();
+                scope.startActivityAndWait();
+                BenchmarkUtils.dismissStartupDialogs(scope.getDevice());
+                return Unit.INSTANCE;
+            },
+            scope -> {
+                SystemClock.sleep(IDLE_MS);
+                return Unit.INSTANCE;
+            });
+    }
+}
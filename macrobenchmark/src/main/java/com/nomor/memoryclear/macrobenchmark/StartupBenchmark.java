@@ -0,0 +1,74 @@
+package com.nomor.memoryclear.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Time to initial display of MainActivity, plus time to full display (the first running
+ * apps count, reported through reportFullyDrawn), for cold and warm starts. The cold start
+ * is also measured without any AOT compilation and with only the baseline profile, which
+ * gives the profile's startup gain:
+ *
+ *     ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    
+    private static final int ITERATIONS = 10;
+    
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+    
+    @Test
+    public void startupCold() {
+        measureStartup(StartupMode.COLD, CompilationMode.DEFAULT);
+    }
+    
+    @Test
+    public void startupWarm() {
+        measureStartup(StartupMode.WARM, CompilationMode.DEFAULT);
+    }
+    
+    @Test
+    public void startupColdNoCompilation() {
+        measureStartup(StartupMode.COLD, new CompilationMode.None());
+    }
+    
+    @Test
+    public void startupColdBaselineProfile() {
+        measureStartup(StartupMode.COLD, new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+    
+    private void measureStartup(StartupMode startupMode, CompilationMode compilationMode) {
+        List<Metric> metrics = Collections.<Metric>singletonList(new StartupTimingMetric());
+        
+        benchmarkRule.measureRepeated(
+            BenchmarkUtils.TARGET_PACKAGE,
+            metrics,
+            compilationMode,
+            startupMode,
+            ITERATIONS,
+            scope -> {
+                scope.pressHome();
+                return Unit.INSTANCE;
+            },
+            scope -> {
+                scope.startActivityAndWait();
+                return Unit.INSTANCE;
+            });
+    }
+}